@@ -0,0 +1,56 @@
+package benchmark;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.function.LongSupplier;
+
+// Small fixed-time benchmark runner: warmup iterations, then measured iterations reporting throughput
+// and bytes allocated per operation (the figure JMH's gc profiler reports as gc.alloc.rate.norm).
+public class Benchmark {
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    private final PrintStream out = System.out;  // Captured up front, benchmarks may redirect System.out
+    private volatile long sink;  // Results are folded in here so the JIT can't drop the measured work
+
+    public Benchmark(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+    }
+
+    public void run(String name, LongSupplier operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(operation);
+        }
+        double opsPerSecond = 0;
+        double bytesPerOp = 0;
+        for (int i = 0; i < measurementIterations; i++) {
+            double[] result = iteration(operation);
+            opsPerSecond += result[0] / measurementIterations;
+            bytesPerOp += result[1] / measurementIterations;
+        }
+        out.printf("%-45s %14.1f ops/s %12.1f B/op%n", name, opsPerSecond, bytesPerOp);
+    }
+
+    private double[] iteration(LongSupplier operation) {
+        long threadId = Thread.currentThread().getId();
+        long ops = 0;
+        long result = 0;
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 64; i++) {  // Checks the clock only every 64 operations
+                result += operation.getAsLong();
+            }
+            ops += 64;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        sink += result;
+        return new double[]{ops * 1e9 / elapsed, (double) allocated / ops};
+    }
+}
@@ -0,0 +1,151 @@
+package benchmark;
+
+import application.UI;
+import chess.ChessMatch;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Color;
+import chess.Fen;
+import chess.MoveList;
+import chess.PieceType;
+import chess.PositionSnapshot;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Repeatable baseline for move generation, check detection, move execution and board rendering. The same cases
+// run under JMH, with forks and the gc profiler, through the Gradle build: gradle jmh (see jmh/benchmark).
+// This runner is the fallback for machines without the build, run from the repository root:
+//   javac -d out $(find src bench -name "*.java") && java -cp out benchmark.ChessBenchmarks [iteration millis]
+public class ChessBenchmarks {
+
+    static final String[] OPENING = {"e2e4", "e7e5", "g1f3", "b8c6"};
+    static final String[] MIDDLEGAME = {"e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "f8c5", "c2c3", "g8f6",
+            "d2d3", "d7d6", "e1g1", "e8g8", "b1d2", "a7a6", "a2a4", "c8e6"};
+    static final String ITALIAN = "r1bqk2r/pppp1ppp/2n2n2/2b1p3/2B1P3/2N2N2/PPPP1PPP/R1BQK2R w KQkq - 6 5";
+    static final String SCHOLARS_MATE = "r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 4 4";
+
+    public static void main(String[] args) {
+        long iterationMillis = (args.length > 0) ? Long.parseLong(args[0]) : 1000;
+        Benchmark benchmark = new Benchmark(5, 5, iterationMillis);
+        ChessMatch start = new ChessMatch();
+        ChessMatch opening = play(OPENING);
+        ChessMatch middlegame = play(MIDDLEGAME);
+
+        // Piece.possibleMoves per piece type, as a bit mask and as the matrix the UI uses
+        for (PieceType type : PieceType.values()) {
+            ChessPiece piece = findPiece(middlegame, type, middlegame.getCurrentPlayer());
+            benchmark.run("possibleMovesMask " + type, piece::possibleMovesMask);
+            benchmark.run("possibleMoves " + type, () -> piece.possibleMoves().length);
+        }
+
+        // Move generation and check detection in a crowded middlegame
+        benchmark.run("legalMoves middlegame", () -> middlegame.legalMoves().size());
+        MoveList moves = new MoveList();
+        benchmark.run("legalMoves packed middlegame", () -> {
+            moves.clear();
+            middlegame.legalMoves(moves);
+            return moves.size();
+        });
+        benchmark.run("makeMove + unmakeMove packed middlegame", () -> {
+            for (int i = 0; i < moves.size(); i++) {
+                middlegame.makeMove(moves.get(i));
+                middlegame.unmakeMove();
+            }
+            return moves.size();
+        });
+        ChessPosition king = findPiece(middlegame, PieceType.KING, middlegame.getCurrentPlayer()).getChessPosition();
+        Color opponent = (middlegame.getCurrentPlayer() == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        benchmark.run("check test middlegame", () -> middlegame.isSquareAttacked(king, opponent) ? 1 : 0);
+
+        // The check and checkmate tests as performChessMove runs them: a move that gives check has its evasions
+        // generated to rule out mate, and a mating move finds none. Each move is taken back to reuse the position
+        ChessMatch italian = Fen.parse(ITALIAN);
+        ChessMove checking = findCheckingMove(italian);
+        benchmark.run("performChessMove + unmakeMove check", () -> {
+            italian.performChessMove(checking);
+            int check = italian.getCheck() ? 1 : 0;
+            italian.unmakeMove();
+            return check;
+        });
+        ChessMatch mateInOne = Fen.parse(SCHOLARS_MATE);
+        ChessMove mate = mateInOne.resolveMove(new ChessPosition('h', 5).toSquare(), new ChessPosition('f', 7).toSquare(), null);
+        benchmark.run("performChessMove + unmakeMove checkmate", () -> {
+            mateInOne.performChessMove(mate);
+            int checkMate = mateInOne.getCheckMate() ? 1 : 0;
+            mateInOne.unmakeMove();
+            return checkMate;
+        });
+
+        // performChessMove on standard positions; each operation works on a fresh copy, measured on its own too
+        ChessMatch[] positions = {start, opening, middlegame};
+        String[] names = {"start", "opening", "middlegame"};
+        for (int i = 0; i < positions.length; i++) {
+            ChessMatch position = positions[i];
+            ChessMove move = position.legalMoves().get(0);
+            benchmark.run("copy " + names[i], () -> new ChessMatch(position).getTurn());
+            benchmark.run("snapshot " + names[i], () -> position.snapshot().getTurn());
+            PositionSnapshot snapshot = position.snapshot();
+            benchmark.run("match from snapshot " + names[i], () -> snapshot.toMatch().getTurn());
+            benchmark.run("copy + performChessMove " + names[i], () -> {
+                ChessMatch copy = new ChessMatch(position);
+                copy.performChessMove(move.getSource(), move.getTarget());
+                return copy.getTurn();
+            });
+        }
+
+        // FEN parsing and writing, from a String and from bytes as in a mapped EPD file
+        String kiwipete = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        ByteBuffer kiwipeteBytes = ByteBuffer.wrap(kiwipete.getBytes(StandardCharsets.US_ASCII));
+        benchmark.run("Fen.parse String", () -> Fen.parse(kiwipete).getTurn());
+        benchmark.run("Fen.parse ByteBuffer", () -> Fen.parse(kiwipeteBytes, 0, kiwipeteBytes.limit()).getTurn());
+        benchmark.run("Fen.toFen middlegame", () -> Fen.toFen(middlegame).length());
+
+        // UI.printBoard rendering, with the console output thrown away
+        PrintStream console = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+        ChessPiece[][] pieces = middlegame.getPieces();
+        boolean[][] possibleMoves = middlegame.possibleMoves(findPiece(middlegame, PieceType.QUEEN, middlegame.getCurrentPlayer()).getChessPosition());
+        for (String name : new String[]{"printBoard", "printBoard with moves"}) {
+            System.setOut(discard);
+            try {
+                benchmark.run(name, () -> {
+                    if (name.equals("printBoard")) UI.printBoard(pieces);
+                    else UI.printBoard(pieces, possibleMoves);
+                    return 0;
+                });
+            } finally {
+                System.setOut(console);
+            }
+        }
+    }
+
+    static ChessMove findCheckingMove(ChessMatch match) {
+        for (ChessMove move : match.legalMoves()) {
+            ChessMatch copy = new ChessMatch(match);
+            copy.performChessMove(move);
+            if (copy.getCheck()) return move;
+        }
+        throw new IllegalStateException("There is no checking move in the position");
+    }
+
+    static ChessMatch play(String[] moves) {
+        ChessMatch match = new ChessMatch();
+        for (String move : moves) {
+            match.performChessMove(new ChessPosition(move.charAt(0), move.charAt(1) - '0'), new ChessPosition(move.charAt(2), move.charAt(3) - '0'));
+        }
+        return match;
+    }
+
+    static ChessPiece findPiece(ChessMatch match, PieceType type, Color color) {
+        for (ChessPiece[] row : match.getPieces()) {
+            for (ChessPiece piece : row) {
+                if (piece != null && piece.getType() == type && piece.getColor() == color) return piece;
+            }
+        }
+        throw new IllegalStateException("There is no " + color + " " + type + " on the board");
+    }
+}
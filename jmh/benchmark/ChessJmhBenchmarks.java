@@ -0,0 +1,185 @@
+package benchmark;
+
+import application.UI;
+import chess.ChessMatch;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.MoveList;
+import chess.PieceType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+// The cases of ChessBenchmarks under JMH: forked JVMs, results consumed by a Blackhole, and allocation per
+// operation from the gc profiler the Gradle build turns on. Run with: gradle jmh
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ChessJmhBenchmarks {
+
+    // One piece of each type in the crowded middlegame, from the side to move
+    @State(Scope.Thread)
+    public static class PieceState {
+        @Param({"PAWN", "KNIGHT", "BISHOP", "ROOK", "QUEEN", "KING"})
+        public PieceType type;
+        ChessPiece piece;
+
+        @Setup
+        public void setUp() {
+            ChessMatch middlegame = ChessBenchmarks.play(ChessBenchmarks.MIDDLEGAME);
+            piece = ChessBenchmarks.findPiece(middlegame, type, middlegame.getCurrentPlayer());
+        }
+    }
+
+    // The standard positions performChessMove is measured on, each with its first legal move
+    @State(Scope.Thread)
+    public static class PositionState {
+        @Param({"start", "opening", "middlegame"})
+        public String name;
+        ChessMatch position;
+        ChessMove move;
+
+        @Setup
+        public void setUp() {
+            position = switch (name) {
+                case "opening" -> ChessBenchmarks.play(ChessBenchmarks.OPENING);
+                case "middlegame" -> ChessBenchmarks.play(ChessBenchmarks.MIDDLEGAME);
+                default -> new ChessMatch();
+            };
+            move = position.legalMoves().get(0);
+        }
+    }
+
+    // Positions that are played on and taken back, so every invocation starts from the same place
+    @State(Scope.Thread)
+    public static class MatchState {
+        ChessMatch middlegame;
+        final MoveList moves = new MoveList();
+        ChessMatch italian;
+        ChessMove checking;
+        ChessMatch mateInOne;
+        ChessMove mate;
+
+        @Setup
+        public void setUp() {
+            middlegame = ChessBenchmarks.play(ChessBenchmarks.MIDDLEGAME);
+            middlegame.legalMoves(moves);
+            italian = Fen.parse(ChessBenchmarks.ITALIAN);
+            checking = ChessBenchmarks.findCheckingMove(italian);
+            mateInOne = Fen.parse(ChessBenchmarks.SCHOLARS_MATE);
+            mate = mateInOne.resolveMove(new ChessPosition('h', 5).toSquare(), new ChessPosition('f', 7).toSquare(), null);
+        }
+    }
+
+    // The middlegame board, with the console thrown away while the benchmark renders it
+    @State(Scope.Thread)
+    public static class BoardState {
+        ChessPiece[][] pieces;
+        boolean[][] possibleMoves;
+        PrintStream console;
+
+        @Setup
+        public void setUp() {
+            ChessMatch middlegame = ChessBenchmarks.play(ChessBenchmarks.MIDDLEGAME);
+            pieces = middlegame.getPieces();
+            ChessPiece queen = ChessBenchmarks.findPiece(middlegame, PieceType.QUEEN, middlegame.getCurrentPlayer());
+            possibleMoves = middlegame.possibleMoves(queen.getChessPosition());
+            console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @TearDown
+        public void tearDown() {
+            System.setOut(console);
+        }
+    }
+
+    @Benchmark
+    public long possibleMovesMask(PieceState state) {
+        return state.piece.possibleMovesMask();
+    }
+
+    @Benchmark
+    public boolean[][] possibleMoves(PieceState state) {
+        return state.piece.possibleMoves();
+    }
+
+    @Benchmark
+    public int legalMovesMiddlegame(MatchState state) {
+        return state.middlegame.legalMoves().size();
+    }
+
+    @Benchmark
+    public int legalMovesPackedMiddlegame(MatchState state) {
+        state.moves.clear();
+        state.middlegame.legalMoves(state.moves);
+        return state.moves.size();
+    }
+
+    @Benchmark
+    public void makeUnmakeMiddlegame(MatchState state, Blackhole blackhole) {
+        for (int i = 0; i < state.moves.size(); i++) {
+            state.middlegame.makeMove(state.moves.get(i));
+            blackhole.consume(state.middlegame.getZobristKey());
+            state.middlegame.unmakeMove();
+        }
+    }
+
+    // testCheck finds the check, then testCheckMate generates the evasions to rule out mate
+    @Benchmark
+    public boolean performChessMoveCheck(MatchState state) {
+        state.italian.performChessMove(state.checking);
+        boolean check = state.italian.getCheck();
+        state.italian.unmakeMove();
+        return check;
+    }
+
+    @Benchmark
+    public boolean performChessMoveCheckmate(MatchState state) {
+        state.mateInOne.performChessMove(state.mate);
+        boolean checkMate = state.mateInOne.getCheckMate();
+        state.mateInOne.unmakeMove();
+        return checkMate;
+    }
+
+    @Benchmark
+    public ChessMatch copy(PositionState state) {
+        return new ChessMatch(state.position);
+    }
+
+    // Includes the copy measured above, so the move is played on the same position every time
+    @Benchmark
+    public ChessMatch copyAndPerformChessMove(PositionState state) {
+        ChessMatch copy = new ChessMatch(state.position);
+        copy.performChessMove(state.move.getSource(), state.move.getTarget());
+        return copy;
+    }
+
+    @Benchmark
+    public void printBoard(BoardState state) {
+        UI.printBoard(state.pieces);
+    }
+
+    @Benchmark
+    public void printBoardWithMoves(BoardState state) {
+        UI.printBoard(state.pieces, state.possibleMoves);
+    }
+}
@@ -0,0 +1,18 @@
+package application;
+
+import server.MatchHost;
+
+import java.io.IOException;
+
+// Runs a MatchHost on a local port until the JVM is stopped: java application.MatchServer [port] [idle seconds]
+public class MatchServer {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : 7000;
+        long idleMillis = ((args.length > 1) ? Long.parseLong(args[1]) : 600) * 1000L;
+
+        MatchHost host = new MatchHost(idleMillis);
+        Runtime.getRuntime().addShutdownHook(new Thread(host::close, "match-host-shutdown"));  // Ctrl+C shuts down gracefully
+        System.out.println("Hosting matches on port " + host.listen(port));
+        Thread.currentThread().join();
+    }
+}
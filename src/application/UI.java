@@ -57,12 +57,15 @@ public class UI {
         printCapturedPieces(captured);
         System.out.println();
         System.out.println("Turn : " + chessMatch.getTurn());
-        if (!chessMatch.getCheckMate()) {
+        if (chessMatch.getStalemate()) {
+            System.out.println("STALEMATE!");
+            System.out.println("Draw");
+        } else if (!chessMatch.getCheckMate()) {
             System.out.println("Waiting player: " + chessMatch.getCurrentPlayer());
             if (chessMatch.getCheck()) System.out.println("CHECK!");
         } else {
             System.out.println("CHECKMATE!");
-            System.out.println("Winner: " + chessMatch.getCurrentPlayer());
+            System.out.println("Winner: " + chessMatch.getWinner());
         }
 
     }
@@ -15,19 +15,45 @@ public abstract class Piece {
 
     public abstract boolean[][] possibleMoves();  // Abstract method to be implemented by each specific piece
 
-    public boolean possibleMove(Position position) {
-        return possibleMoves()[position.getRow()][position.getColumn()];  // Checks if the piece can move to the specified position
-    }
-
-    public boolean isThereAnyPossibleMove() {
+    // Possible moves as a bit mask, bit (row * columns + column) set for each reachable square.
+    // Only meaningful for boards of up to 64 squares; pieces should override it to avoid building the matrix.
+    public long possibleMovesMask() {
         boolean[][] mat = possibleMoves();
+        long mask = 0L;
         for (int i = 0; i < mat.length; i++) {
             for (int j = 0; j < mat[i].length; j++) {
                 if (mat[i][j]) {
-                    return true;  // Returns true if there is at least one possible move
+                    mask |= 1L << (i * board.getColumns() + j);
+                }
+            }
+        }
+        return mask;
+    }
+
+    private boolean fitsInMask() {
+        return board.getRows() * board.getColumns() <= Long.SIZE;  // A move mask holds at most 64 squares
+    }
+
+    public boolean possibleMove(Position position) {
+        if (!fitsInMask()) {
+            return possibleMoves()[position.getRow()][position.getColumn()];
+        }
+        long bit = 1L << (position.getRow() * board.getColumns() + position.getColumn());
+        return (possibleMovesMask() & bit) != 0;  // Checks if the piece can move to the specified position
+    }
+
+    public boolean isThereAnyPossibleMove() {
+        if (!fitsInMask()) {
+            boolean[][] mat = possibleMoves();
+            for (int i = 0; i < mat.length; i++) {
+                for (int j = 0; j < mat[i].length; j++) {
+                    if (mat[i][j]) {
+                        return true;  // Returns true if there is at least one possible move
+                    }
                 }
             }
+            return false;  // Returns false if no moves are possible
         }
-        return false;  // Returns false if no moves are possible
+        return possibleMovesMask() != 0;  // Returns true if there is at least one possible move
     }
 }
@@ -0,0 +1,45 @@
+package chess;
+
+import java.nio.ByteBuffer;
+
+// CharSequence view of a window of ASCII bytes in a ByteBuffer, so text in a mapped file can be parsed
+// in place. The window can be moved with reset, which lets one view walk a whole file line by line.
+final class AsciiSequence implements CharSequence {
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    AsciiSequence(ByteBuffer buffer, int offset, int length) {
+        reset(buffer, offset, length);
+    }
+
+    void reset(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buffer.get(offset + index) & 0xFF);  // Absolute get: the buffer's position is never moved
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new AsciiSequence(buffer, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(charAt(i));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,189 @@
+package chess;
+
+// Precomputed attack tables, indexed by the ChessBoard square index (row * 8 + column).
+// Sliding pieces use magic bitboards: the relevant blockers are multiplied by a magic number
+// and the top bits of the product index a table holding the attack set for that occupancy.
+public final class Attacks {
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+    private static final long[][] BETWEEN = new long[64][64];
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    // Magic numbers for the a8 = 0 square order, found offline by a random search over sparse 64-bit candidates
+    private static final long[] ROOK_MAGICS = {
+            0x0080008420144000L, 0x0140001000402000L, 0x8100200100081040L, 0x0580100181040800L,
+            0x0480040002480180L, 0x020002001004C108L, 0x06002600180104ACL, 0x0A00010200804024L,
+            0x1102800320814002L, 0xC000808040002000L, 0x0202802000821000L, 0x4210800800801000L,
+            0x8008808044004800L, 0x0006002418100200L, 0x0A00800200010080L, 0x0202000208804114L,
+            0x0280044002200041L, 0x3010004020004008L, 0x0010002008040022L, 0x8000210008100102L,
+            0x60A2020004110820L, 0x0222008080040002L, 0x00C0840002085110L, 0x02004A0000810454L,
+            0x0080401080008020L, 0x0040200040100048L, 0x0006041200208040L, 0x2010100100210008L,
+            0x5090080080800400L, 0x0022002200042950L, 0x011010040002E108L, 0x0000240200009041L,
+            0x0010400020800080L, 0x0040401000402000L, 0x0200200080801000L, 0x4140080080801003L,
+            0x0000800400800800L, 0x0800040080800200L, 0x1008080284002110L, 0x00A001008A001444L,
+            0x3040002040908000L, 0x1000422010024000L, 0x0040402001010010L, 0x8000100008008080L,
+            0x0084008008028004L, 0x0002000204008080L, 0x0000088210040001L, 0x0280C12080520004L,
+            0x028700800C402B00L, 0x0180200040008080L, 0x80A0008020100080L, 0x0001012010008900L,
+            0x4000040108008180L, 0x000C000402008080L, 0x004B0002002C0900L, 0x0020D42040811200L,
+            0x8844520121004082L, 0x1109150082204001L, 0x0302000820408012L, 0x2081002208041001L,
+            0x0002000804201002L, 0x5101000A28040029L, 0x0100080112489004L, 0x02000E4400288102L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x4014281015002108L, 0x0060020882029000L, 0x1104440082102120L, 0x4004410020042802L,
+            0x0011104020140040L, 0x0006074460005020L, 0x48208E0820040201L, 0x0202050401042240L,
+            0x400C401014208AA0L, 0x01C020064A424100L, 0x0012304408424000L, 0x21008808510C0004L,
+            0x0020141420000024L, 0x0004009004202009L, 0x4002008410080450L, 0x2000088280B82000L,
+            0x4040002410828602L, 0x08448030810A1410L, 0x1010032104008110L, 0x0850810802084244L,
+            0x0804000202112040L, 0x4901008610009420L, 0x31A0402411082800L, 0x8402000107620200L,
+            0x2210311041126208L, 0x0295218018020400L, 0x2092010408104400L, 0x0004040000401080L,
+            0x0020404004010041L, 0x80448A0109080618L, 0x008084110A0A0200L, 0x204C00C000A70440L,
+            0x3010106441114400L, 0x0C94115400181000L, 0x1821403000020400L, 0x2000020082480080L,
+            0x2080408020020200L, 0x0020080040068040L, 0x20089D8888190802L, 0x000F820044408408L,
+            0x2084022006089000L, 0x22510101A0401020L, 0x40000A0802009408L, 0x140483C010420200L,
+            0x0449200208811408L, 0x0002220042000100L, 0x00281000D0800201L, 0x044200A519010200L,
+            0x0300421050080002L, 0x00C0540401080004L, 0x4801010088040034L, 0x8400000210540051L,
+            0x400400404822002CL, 0x2080070448020000L, 0x1B2082100A00A000L, 0x4002021802108000L,
+            0xC000248800901000L, 0x0000024100B01100L, 0x1902103044022100L, 0x0000004404228810L,
+            0x0101000008210100L, 0x0025000820089082L, 0x0008091010008120L, 0x9120024202040010L
+    };
+
+    private static final int[][] KNIGHT_STEPS = {{-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}, {1, 2}, {2, 1}, {2, -1}, {1, -2}};
+    private static final int[][] KING_STEPS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}, {-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+    private static final int[][] ROOK_DIRECTIONS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{-1, -1}, {-1, 1}, {1, 1}, {1, -1}};
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT[square] = steps(square, KNIGHT_STEPS);
+            KING[square] = steps(square, KING_STEPS);
+            PAWN[Color.WHITE.ordinal()][square] = steps(square, new int[][]{{-1, -1}, {-1, 1}});  // White pawns capture up the rows
+            PAWN[Color.BLACK.ordinal()][square] = steps(square, new int[][]{{1, -1}, {1, 1}});  // Black pawns capture down the rows
+        }
+        for (int square = 0; square < 64; square++) {
+            initMagic(square, ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS[square], ROOK_SHIFTS, ROOK_TABLE);
+            initMagic(square, BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS[square], BISHOP_SHIFTS, BISHOP_TABLE);
+        }
+        for (int square = 0; square < 64; square++) {
+            for (int[] direction : KING_STEPS) {
+                long ray = 0L;
+                int row = (square >>> 3) + direction[0];
+                int column = (square & 7) + direction[1];
+                while (onBoard(row, column)) {
+                    int other = ChessBoard.square(row, column);
+                    BETWEEN[square][other] = ray;  // Squares strictly between two squares on the same line
+                    ray |= 1L << other;
+                    row += direction[0];
+                    column += direction[1];
+                }
+            }
+        }
+    }
+
+    private Attacks() {
+    }
+
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    public static long pawn(Color color, int square) {
+        return PAWN[color.ordinal()][square];  // Squares a pawn of the given color attacks from the square
+    }
+
+    public static long rook(int square, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_TABLE[square][index];
+    }
+
+    public static long bishop(int square, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_TABLE[square][index];
+    }
+
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];  // Empty when the squares are adjacent or not on a common rank, file or diagonal
+    }
+
+    private static boolean onBoard(int row, int column) {
+        return row >= 0 && row < 8 && column >= 0 && column < 8;
+    }
+
+    private static long steps(int square, int[][] offsets) {
+        long mask = 0L;
+        for (int[] offset : offsets) {
+            int row = (square >>> 3) + offset[0];
+            int column = (square & 7) + offset[1];
+            if (onBoard(row, column)) mask |= 1L << ChessBoard.square(row, column);
+        }
+        return mask;
+    }
+
+    // Walks every ray square by square; only used while building the tables
+    private static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long mask = 0L;
+        for (int[] direction : directions) {
+            int row = (square >>> 3) + direction[0];
+            int column = (square & 7) + direction[1];
+            while (onBoard(row, column)) {
+                long bit = 1L << ChessBoard.square(row, column);
+                mask |= bit;
+                if ((occupied & bit) != 0) break;
+                row += direction[0];
+                column += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    // Squares whose occupancy can change the attack set: each ray without its last square on the edge
+    private static long relevantMask(int square, int[][] directions) {
+        long mask = 0L;
+        for (int[] direction : directions) {
+            int row = (square >>> 3) + direction[0];
+            int column = (square & 7) + direction[1];
+            while (onBoard(row + direction[0], column + direction[1])) {
+                mask |= 1L << ChessBoard.square(row, column);
+                row += direction[0];
+                column += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static void initMagic(int square, int[][] directions, long[] masks, long magic, int[] shifts, long[][] tables) {
+        long mask = relevantMask(square, directions);
+        int bits = Long.bitCount(mask);
+        long[] table = new long[1 << bits];
+        boolean[] used = new boolean[1 << bits];
+        long subset = 0L;
+        do {
+            long attacks = slidingAttacks(square, subset, directions);
+            int index = (int) ((subset * magic) >>> (64 - bits));
+            if (used[index] && table[index] != attacks) {
+                throw new IllegalStateException("Bad magic number for square " + square);  // Two occupancies with different attacks collide
+            }
+            used[index] = true;
+            table[index] = attacks;
+            subset = (subset - mask) & mask;  // Enumerates every subset of the mask (carry-rippler trick)
+        } while (subset != 0);
+        masks[square] = mask;
+        shifts[square] = 64 - bits;
+        tables[square] = table;
+    }
+}
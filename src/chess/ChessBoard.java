@@ -0,0 +1,161 @@
+package chess;
+
+import boardgame.Board;
+import boardgame.BoardException;
+import boardgame.Piece;
+import boardgame.Position;
+
+public class ChessBoard extends Board {
+    private static final Position[] POSITIONS = new Position[64];  // Shared by the square-index overloads, never modified
+    // Square index used by the bitboards: row * 8 + column, so bit 0 is a8 and bit 63 is h1
+    private long[] colorBitboards = new long[Color.values().length];
+    private long[] typeBitboards = new long[PieceType.values().length];
+    private long zobristKey;  // Zobrist key of the piece placement, updated on every place and remove
+    private long pawnKey;  // Zobrist key of the pawns alone, so it only changes when a pawn moves, is captured or promotes
+    private int middlegameScore;  // Material and piece-square sums, white minus black, updated on every place and remove
+    private int endgameScore;
+    private int phase;  // Sum of the phase weights of the pieces on the board
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            POSITIONS[square] = position(square);
+        }
+    }
+
+    public ChessBoard() {
+        super(8, 8);  // A chess board is always 8x8, which lets every square fit in one bit of a long
+    }
+
+    public static int square(int row, int column) {
+        return row * 8 + column;  // Converts a row and column to a bitboard square index
+    }
+
+    public static int square(Position position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    public static Position position(int square) {
+        return new Position(square >>> 3, square & 7);  // Converts a bitboard square index back to a Position
+    }
+
+    public ChessPiece piece(int square) {
+        return (ChessPiece) piece(square >>> 3, square & 7);  // Returns the piece on the given square index
+    }
+
+    public long getOccupied() {
+        return colorBitboards[0] | colorBitboards[1];  // Every occupied square
+    }
+
+    public long getPieces(Color color) {
+        return colorBitboards[color.ordinal()];  // Every square occupied by the given color
+    }
+
+    public long getPieces(PieceType type) {
+        return typeBitboards[type.ordinal()];  // Every square occupied by the given piece type, of both colors
+    }
+
+    public long getPieces(Color color, PieceType type) {
+        return colorBitboards[color.ordinal()] & typeBitboards[type.ordinal()];
+    }
+
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    public int getMiddlegameScore() {
+        return middlegameScore;
+    }
+
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    public int getPhase() {
+        return phase;
+    }
+
+    public boolean isOccupied(int square) {
+        return (getOccupied() & (1L << square)) != 0;
+    }
+
+    public boolean isSquareAttacked(int square, Color byColor) {
+        // Looks outward from the target square: a piece of byColor attacks it exactly when a piece of the same
+        // type standing on the square would attack that piece (pawns use the attacks of the other color)
+        long attackers = colorBitboards[byColor.ordinal()];
+        Color other = (byColor == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        if ((Attacks.pawn(other, square) & attackers & typeBitboards[PieceType.PAWN.ordinal()]) != 0) return true;
+        if ((Attacks.knight(square) & attackers & typeBitboards[PieceType.KNIGHT.ordinal()]) != 0) return true;
+        if ((Attacks.king(square) & attackers & typeBitboards[PieceType.KING.ordinal()]) != 0) return true;
+        long queens = typeBitboards[PieceType.QUEEN.ordinal()];
+        long occupied = getOccupied();
+        if ((Attacks.bishop(square, occupied) & attackers & (typeBitboards[PieceType.BISHOP.ordinal()] | queens)) != 0) return true;
+        return (Attacks.rook(square, occupied) & attackers & (typeBitboards[PieceType.ROOK.ordinal()] | queens)) != 0;
+    }
+
+    public long attackersTo(int square, Color byColor, long occupied) {
+        // Same outward lookup as isSquareAttacked, but collects every attacker, with sliders blocked by the given occupancy
+        long queens = typeBitboards[PieceType.QUEEN.ordinal()];
+        Color other = (byColor == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        long attackers = (Attacks.pawn(other, square) & typeBitboards[PieceType.PAWN.ordinal()])
+                | (Attacks.knight(square) & typeBitboards[PieceType.KNIGHT.ordinal()])
+                | (Attacks.king(square) & typeBitboards[PieceType.KING.ordinal()])
+                | (Attacks.bishop(square, occupied) & (typeBitboards[PieceType.BISHOP.ordinal()] | queens))
+                | (Attacks.rook(square, occupied) & (typeBitboards[PieceType.ROOK.ordinal()] | queens));
+        return attackers & colorBitboards[byColor.ordinal()] & occupied;
+    }
+
+    @Override
+    public void placePiece(Piece piece, Position position) {
+        super.placePiece(piece, position);
+        ChessPiece p = (ChessPiece) piece;
+        long bit = 1L << square(position);
+        colorBitboards[p.getColor().ordinal()] |= bit;  // Keeps the bitboards in sync with the grid
+        typeBitboards[p.getType().ordinal()] |= bit;
+        zobristKey ^= Zobrist.piece(p.getColor(), p.getType(), square(position));
+        if (p.getType() == PieceType.PAWN) pawnKey ^= Zobrist.piece(p.getColor(), PieceType.PAWN, square(position));
+        updateScores(p, square(position), 1);
+    }
+
+    // Same as placePiece(Piece, Position) but without allocating a Position, for the packed move path
+    void placePiece(ChessPiece piece, int square) {
+        placePiece(piece, POSITIONS[square]);
+    }
+
+    ChessPiece removePiece(int square) {
+        return (ChessPiece) removePiece(POSITIONS[square]);
+    }
+
+    @Override
+    public Piece removePiece(Position position) {
+        Piece aux = super.removePiece(position);
+        if (aux != null) {
+            ChessPiece p = (ChessPiece) aux;
+            long bit = 1L << square(position);
+            colorBitboards[p.getColor().ordinal()] &= ~bit;  // Keeps the bitboards in sync with the grid
+            typeBitboards[p.getType().ordinal()] &= ~bit;
+            zobristKey ^= Zobrist.piece(p.getColor(), p.getType(), square(position));
+            if (p.getType() == PieceType.PAWN) pawnKey ^= Zobrist.piece(p.getColor(), PieceType.PAWN, square(position));
+            updateScores(p, square(position), -1);
+        }
+        return aux;
+    }
+
+    private void updateScores(ChessPiece p, int square, int sign) {
+        int perspective = (p.getColor() == Color.WHITE) ? sign : -sign;
+        middlegameScore += perspective * PieceSquareTables.middlegame(p.getColor(), p.getType(), square);
+        endgameScore += perspective * PieceSquareTables.endgame(p.getColor(), p.getType(), square);
+        phase += sign * PieceSquareTables.phaseWeight(p.getType());
+    }
+
+    @Override
+    public boolean thereIsPiece(Position position) {
+        if (!positionExists(position)) {
+            throw new BoardException("Position not on the board");
+        }
+        return isOccupied(square(position));  // Answers from the occupancy bitboard instead of the grid
+    }
+}
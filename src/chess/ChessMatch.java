@@ -1,31 +1,121 @@
 package chess;
 
-import boardgame.Board;
 import boardgame.Piece;
 import boardgame.Position;
 import chess.pieces.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class ChessMatch {
 
     private int turn;
     private Color currentPlayer;
-    private Board board;
+    private ChessBoard board;
     private boolean check;
     private boolean checkMate;
+    private boolean stalemate;
     private ChessPiece enPassantVulnerable;
     private ChessPiece promoted;
+    private int castlingRights;  // Zobrist castling flags currently hashed into stateKey
+    private int enPassantFile = -1;  // File of the en passant capture currently hashed into stateKey, or -1
+    private long stateKey;  // Zobrist key of side to move, castling rights and en passant; pieces are hashed by the board
+    private int[] kingSquares = new int[Color.values().length];  // Square of each king, kept up to date by applyMove/unmakeMove
+    private int halfmoveClock;  // Moves since the last capture or pawn move, for the fifty-move rule
 
-    private List<Piece> piecesOnTheBoard = new ArrayList<>();
     private List<Piece> capturedPieces = new ArrayList<>();
+    private MoveRecord[] stack = new MoveRecord[64];  // Undo stack, one record per move played, reused across moves
+    private int ply;  // Number of records in use on the stack
+    private final MoveList scratchMoves = new MoveList();  // Reused by the lookups that only need moves for a moment
+    private volatile PositionSnapshot published;  // Position after the last completed move, for readers on other threads
+
+    // The state before a move: what unmakeMove puts back as it was instead of working it out again
+    private static class MoveRecord {
+        int move;
+        ChessPiece capturedPiece;
+        ChessPiece pawn;  // The pawn that promoted, or null
+        int turn;
+        Color currentPlayer;
+        boolean check;
+        boolean checkMate;
+        boolean stalemate;
+        ChessPiece enPassantVulnerable;
+        ChessPiece promoted;
+        int castlingRights;
+        int enPassantFile;
+        int halfmoveClock;
+        long stateKey;
+    }
 
     public ChessMatch() {
-        board = new Board(8, 8);  // Initializes an 8x8 board
+        board = new ChessBoard();  // Initializes an 8x8 board backed by bitboards
         turn = 1;  // Game starts at turn 1
         currentPlayer = Color.WHITE;  // White starts the game
         initialSetup();  // Sets up the initial board configuration
+        updateStateKey();
+        publish();
+    }
+
+    public ChessMatch(ChessMatch other) {
+        // Deep copy: new board and new pieces, so the copy can be searched on another thread. The undo stack is not copied
+        board = new ChessBoard();
+        turn = other.turn;
+        currentPlayer = other.currentPlayer;
+        check = other.check;
+        checkMate = other.checkMate;
+        stalemate = other.stalemate;
+        long occupied = other.board.getOccupied();
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            occupied &= occupied - 1;
+            ChessPiece original = other.board.piece(square);
+            ChessPiece copy = createPiece(original.getType(), original.getColor());
+            copy.setMoveCount(original.getMoveCount());
+            board.placePiece(copy, ChessBoard.position(square));
+            if (original == other.enPassantVulnerable) enPassantVulnerable = copy;
+            if (original == other.promoted) promoted = copy;
+        }
+        for (Piece p : other.capturedPieces) {
+            ChessPiece original = (ChessPiece) p;
+            capturedPieces.add(createPiece(original.getType(), original.getColor()));
+        }
+        kingSquares = other.kingSquares.clone();
+        halfmoveClock = other.halfmoveClock;
+        castlingRights = other.castlingRights;
+        enPassantFile = other.enPassantFile;
+        stateKey = other.stateKey;
+        publish();
+    }
+
+    public ChessMatch(PositionSnapshot snapshot) {
+        // Rebuilds the position on a new board. Move counts are set so the pieces behave as the snapshot says:
+        // kings and rooks with castling rights and pawns on their start row count as not moved yet.
+        board = new ChessBoard();
+        turn = snapshot.getTurn();
+        currentPlayer = snapshot.getSideToMove();
+        halfmoveClock = snapshot.getHalfmoveClock();
+        int rights = snapshot.getCastlingRights();
+        for (int square = 0; square < 64; square++) {
+            PieceType type = snapshot.getPieceType(square);
+            if (type == null) continue;
+            Color color = snapshot.getPieceColor(square);
+            ChessPiece piece = createPiece(type, color);
+            piece.setMoveCount(hasMoved(type, color, square, rights) ? 1 : 0);
+            placeNewPiece(piece, ChessBoard.position(square));
+        }
+        int file = snapshot.getEnPassantFile();
+        if (file >= 0) {
+            Color mover = opponent(currentPlayer);
+            enPassantVulnerable = board.piece(ChessBoard.square((mover == Color.WHITE) ? 4 : 3, file));
+        }
+        if (currentPlayer == Color.BLACK) stateKey ^= Zobrist.sideToMove(Color.BLACK);
+        updateStateKey();
+        check = testCheck(currentPlayer);
+        boolean noMoves = !hasLegalMove(currentPlayer);
+        checkMate = check && noMoves;
+        stalemate = !check && noMoves;
+        publish();
     }
 
     public int getTurn() {
@@ -44,6 +134,14 @@ public class ChessMatch {
         return checkMate;
     }
 
+    public boolean getStalemate() {
+        return stalemate;
+    }
+
+    public Color getWinner() {
+        return checkMate ? opponent(currentPlayer) : null;  // The mated side is the one to move, so the winner is the other
+    }
+
     public ChessPiece getEnPassantVulnerable() {
         return enPassantVulnerable;
     }
@@ -52,12 +150,85 @@ public class ChessMatch {
         return promoted;
     }
 
+    public int getCastlingRights() {
+        return castlingRights;  // Zobrist castling flags, as in PositionSnapshot
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public int getPieceCount() {
+        return Long.bitCount(board.getOccupied());  // Both colors, kings included
+    }
+
+    public int getPieceCount(Color color, PieceType type) {
+        return Long.bitCount(board.getPieces(color, type));  // Read straight from the bitboards
+    }
+
+    public long getPieces(Color color, PieceType type) {
+        return board.getPieces(color, type);  // Bitboard of the pieces, bit row * 8 + column set for each
+    }
+
+    public int getMiddlegameScore() {
+        return board.getMiddlegameScore();  // Material and piece-square sum for white minus black, kept up to date by the board
+    }
+
+    public int getEndgameScore() {
+        return board.getEndgameScore();
+    }
+
+    public int getGamePhase() {
+        return Math.min(board.getPhase(), PieceSquareTables.TOTAL_PHASE);  // 24 at the start, 0 with only kings and pawns left
+    }
+
+    public long getZobristKey() {
+        return board.getZobristKey() ^ stateKey;  // Constant-time fingerprint of the current position
+    }
+
+    public long getPawnKey() {
+        return board.getPawnKey();  // Fingerprint of the pawn structure alone, for caching pawn evaluation
+    }
+
+    // The position as of the last completed move, readable from any thread without locking while another
+    // thread plays: performChessMove, replacePromotedPiece, undoLastMove and undoTo swap in a new snapshot once they
+    // are done, so a reader never sees a move half made. makeMove and unmakeMove are search steps and leave it alone;
+    // the thread driving a watched match with them calls finishMoves() when it is done.
+    public PositionSnapshot getPublishedSnapshot() {
+        return published;
+    }
+
+    // Snapshots the live board, so only the thread playing the match may call it, and only between moves:
+    // from any other thread it could publish a move half made
+    private void publish() {
+        published = snapshot();
+    }
+
+    // Compact immutable copy of the position, safe to hand to other threads
+    public PositionSnapshot snapshot() {
+        long[] pieces = new long[4];
+        for (Color color : Color.values()) {
+            for (PieceType type : PieceType.values()) {
+                long code = PositionSnapshot.pieceCode(color, type);
+                long bitboard = board.getPieces(color, type);
+                while (bitboard != 0) {
+                    int square = Long.numberOfTrailingZeros(bitboard);  // Visits only the occupied squares
+                    bitboard &= bitboard - 1;
+                    pieces[square >>> 4] |= code << ((square & 15) * 4);
+                }
+            }
+        }
+        int file = (enPassantVulnerable != null && enPassantVulnerable.getColor() != currentPlayer) ? enPassantVulnerable.getSquare() & 7 : -1;
+        return new PositionSnapshot(pieces, currentPlayer, castlingRights, file, halfmoveClock, turn, getZobristKey());
+    }
+
     public ChessPiece[][] getPieces() {
         ChessPiece[][] mat = new ChessPiece[board.getRows()][board.getColumns()];
-        for (int i = 0; i < board.getRows(); i++) {
-            for (int j = 0; j < board.getColumns(); j++) {
-                mat[i][j] = (ChessPiece) board.piece(i, j);  // Casts each piece on the board to ChessPiece
-            }
+        long occupied = board.getOccupied();
+        while (occupied != 0) {
+            int square = Long.numberOfTrailingZeros(occupied);  // Visits only the occupied squares
+            occupied &= occupied - 1;
+            mat[square >>> 3][square & 7] = board.piece(square);
         }
         return mat;
     }
@@ -68,161 +239,315 @@ public class ChessMatch {
         return board.piece(position).possibleMoves();  // Returns the possible moves for the piece at the source position
     }
 
+    public List<ChessMove> legalMoves() {
+        List<ChessMove> moves = new ArrayList<>();  // Every legal move of the player to move
+        generate(~0L, MoveGenerator.ALL, moves);
+        return moves;
+    }
+
+    public void legalMoves(MoveList moves) {
+        generate(~0L, MoveGenerator.ALL, moves);  // Packed, added to the given list
+    }
+
+    public void legalCaptures(List<ChessMove> moves) {
+        // Captures, en passant and promotions of the player to move, added to the given list
+        generate(~0L, MoveGenerator.CAPTURES, moves);
+    }
+
+    public void legalCaptures(MoveList moves) {
+        generate(~0L, MoveGenerator.CAPTURES, moves);
+    }
+
+    public void legalQuietMoves(List<ChessMove> moves) {
+        // Every other legal move of the player to move, castling included, added to the given list
+        generate(~0L, MoveGenerator.QUIETS, moves);
+    }
+
+    public void legalQuietMoves(MoveList moves) {
+        generate(~0L, MoveGenerator.QUIETS, moves);
+    }
+
+    public ChessMove findLegalMove(int source, int target, PieceType promotion) {
+        // Generates only the moves of the piece on the source square; returns null when the move isn't legal
+        scratchMoves.clear();
+        generate(1L << source, MoveGenerator.ALL, scratchMoves);
+        for (int i = 0; i < scratchMoves.size(); i++) {
+            int move = scratchMoves.get(i);
+            if (Move.target(move) == target && Move.promotionPiece(move) == promotion) return new ChessMove(move);
+        }
+        return null;
+    }
+
+    // A move given by its squares, as typed by a player or read from another program. A pawn reaching the last row
+    // without a piece is promoted to a queen, as performChessMove does; returns null when the move isn't legal
+    public ChessMove resolveMove(int source, int target, PieceType promotion) {
+        if (promotion == null && getPieceType(source) == PieceType.PAWN && ((target >>> 3) == 0 || (target >>> 3) == 7)) {
+            promotion = PieceType.QUEEN;
+        }
+        return findLegalMove(source, target, promotion);  // Null too for an empty square or the opponent's piece
+    }
+
+    public boolean isLegal(int move) {
+        // For packed moves from another position, such as a hash or killer move in search
+        if (move == Move.NONE) return false;
+        scratchMoves.clear();
+        generate(1L << Move.source(move), MoveGenerator.ALL, scratchMoves);
+        return scratchMoves.contains(move);
+    }
+
+    private void generate(long sources, int kinds, MoveList moves) {
+        MoveGenerator.generate(board, currentPlayer, kingSquares[currentPlayer.ordinal()], enPassantVulnerable, sources, kinds, moves);
+    }
+
+    private void generate(long sources, int kinds, List<ChessMove> moves) {
+        scratchMoves.clear();
+        generate(sources, kinds, scratchMoves);
+        for (int i = 0; i < scratchMoves.size(); i++) {
+            moves.add(new ChessMove(scratchMoves.get(i)));
+        }
+    }
+
+    private boolean hasLegalMove(Color color) {
+        scratchMoves.clear();
+        MoveGenerator.generate(board, color, kingSquares[color.ordinal()], enPassantVulnerable, scratchMoves);
+        return !scratchMoves.isEmpty();
+    }
+
+    public PieceType getPieceType(int square) {
+        ChessPiece p = board.piece(square);
+        return (p == null) ? null : p.getType();  // Type of the piece on a bitboard square index, or null when empty
+    }
+
     public ChessPiece performChessMove(ChessPosition sourcePosition, ChessPosition targetPosition) {
         Position source = sourcePosition.toPosition();  // Converts source ChessPosition to Position
         Position target = targetPosition.toPosition();  // Converts target ChessPosition to Position
         validateSourcePosition(source);  // Validates the source position
         validateTargetPosition(source, target);  // Validates the target position
-        Piece capturedPiece = makeMove(source, target);  // Makes the move and captures any piece on the target position
-
-        if (testCheck(currentPlayer)) {  // Checks if the current player's move puts their king in check
-            undoMove(source, target, capturedPiece);  // Undo the move if it puts the player in check
+        ChessMove move = resolveMove(ChessBoard.square(source), ChessBoard.square(target), null);
+        if (move == null) {  // The move generator already left out moves that put the king in check
             throw new ChessException("You can't put yourself in check");
         }
+        return completeMove(move.getMove());  // A pawn reaching the last row is promoted to a queen
+    }
 
-        ChessPiece movedPiece = (ChessPiece) board.piece(target);  // Gets the moved piece
-
-        // Special move: Promotion
-        promoted = null;
-        if (movedPiece instanceof Pawn) {
-            if (movedPiece.getColor() == Color.WHITE && target.getRow() == 0 || movedPiece.getColor() == Color.BLACK && target.getRow() == 7) {
-                promoted = (ChessPiece) board.piece(target);
-                promoted = replacePromotedPiece("Q");  // Automatically promotes to Queen
-            }
-        }
+    // Plays a move from legalMoves(), findLegalMove() or resolveMove(), under-promotions included, with the same checks and
+    // end-of-game tests as performChessMove(ChessPosition, ChessPosition)
+    public ChessPiece performChessMove(ChessMove move) {
+        if (!isLegal(move.getMove())) throw new ChessException("The move " + move + " is not legal");
+        return completeMove(move.getMove());
+    }
 
-        check = testCheck(opponent(currentPlayer));  // Checks if the opponent is in check
+    // Makes the move, records it for undo, and works out check, checkmate and stalemate for the opponent.
+    // The turn passes to the opponent even when mated, so the snapshot, FEN and key name the side to move
+    private ChessPiece completeMove(int move) {
+        Piece capturedPiece = applyMove(move);
+        nextTurn();
 
-        if (testCheckMate(opponent(currentPlayer))) {
+        check = testCheck(currentPlayer);  // Checks if the opponent is in check
+        if (testCheckMate(currentPlayer)) {
             checkMate = true;  // Checks if the opponent is in checkmate
         } else {
-            nextTurn();  // Proceeds to the next turn if not in checkmate
-        }
-
-        // Special move: En Passant
-        if (movedPiece instanceof Pawn && (target.getRow() == source.getRow() - 2 || target.getRow() == source.getRow() + 2)) {
-            enPassantVulnerable = movedPiece;  // Sets the pawn that is vulnerable to en passant
-        } else {
-            enPassantVulnerable = null;
+            stalemate = !check && !hasLegalMove(currentPlayer);  // No legal move without being in check is a draw
         }
+        updateStateKey();
+        publish();
 
         return (ChessPiece) capturedPiece;  // Returns the captured piece, if any
     }
 
+    public boolean isSquareAttacked(ChessPosition square, Color byColor) {
+        return board.isSquareAttacked(ChessBoard.square(square.toPosition()), byColor);  // Checks if any piece of the given color attacks the square
+    }
+
     public ChessPiece replacePromotedPiece(String type) {
         if (promoted == null) throw new IllegalStateException("There is no piece to be promoted");
         if (!type.equals("B") && !type.equals("N") && !type.equals("R") && !type.equals("Q")) {
             return promoted;  // Only allows promotion to Bishop, Knight, Rook, or Queen
         }
+        if (ply == 0) throw new IllegalStateException("The promotion was made before this match was copied");
+
+        // Takes the promotion back and plays it again with the new piece, so check, checkmate, stalemate and
+        // the turn are worked out for the piece actually on the board
+        int move = stack[ply - 1].move;
+        unmakeMove();
+        PieceType piece = switch (type) {
+            case "B" -> PieceType.BISHOP;
+            case "N" -> PieceType.KNIGHT;
+            case "R" -> PieceType.ROOK;
+            default -> PieceType.QUEEN;
+        };
+        completeMove(Move.promotion(Move.source(move), Move.target(move), piece, Move.isCapture(move)));
+        return promoted;
+    }
+
+    private ChessPiece createPiece(PieceType type, Color color) {
+        return switch (type) {
+            case PAWN -> new Pawn(board, color, this);
+            case KNIGHT -> new Knight(board, color);
+            case BISHOP -> new Bishop(board, color);
+            case ROOK -> new Rook(board, color);
+            case QUEEN -> new Queen(board, color);
+            case KING -> new King(board, color, this);
+        };
+    }
 
-        Position pos = promoted.getChessPosition().toPosition();  // Gets the position of the promoted piece
-        Piece p = board.removePiece(pos);  // Removes the promoted piece from the board
-        piecesOnTheBoard.remove(p);
+    // Plays a move from legalMoves() without validating it or testing for checkmate, for search and perft.
+    // The move can be taken back with unmakeMove.
+    public void makeMove(ChessMove move) {
+        makeMove(move.getMove());
+    }
 
-        ChessPiece newPiece = newPiece(type, promoted.getColor());  // Creates the new piece of the specified type
-        board.placePiece(newPiece, pos);  // Places the new piece on the board
-        piecesOnTheBoard.add(newPiece);
+    // Same as makeMove(ChessMove) for a packed move; the flags say what kind of move it is, so nothing is inferred
+    public void makeMove(int move) {
+        applyMove(move);
+        nextTurn();
+        updateStateKey();
+        check = testCheck(currentPlayer);
+    }
 
-        return newPiece;
+    // Works out checkmate and stalemate for the side to move and publishes the position, after a run of
+    // makeMove calls such as a game replay, which leave both alone. Like makeMove itself, only the thread
+    // playing the match may call it; spectators read getPublishedSnapshot() instead
+    public void finishMoves() {
+        boolean noMoves = !hasLegalMove(currentPlayer);
+        checkMate = check && noMoves;
+        stalemate = !check && noMoves;
+        publish();
     }
 
-    private ChessPiece newPiece(String type, Color color) {
-        return switch (type) {
-            case "B" -> new Bishop(board, color);
-            case "N" -> new Knight(board, color);
-            case "R" -> new Rook(board, color);
-            default -> new Queen(board, color);  // Defaults to Queen if type is not recognized
-        };
+    // Number of moves that can be taken back, the ply to pass to undoTo to return to the current position
+    public int getPly() {
+        return ply;
     }
 
-    private Piece makeMove(Position source, Position target) {
-        ChessPiece p = (ChessPiece) board.removePiece(source);  // Removes the piece from the source position
-        p.increaseMoveCount();  // Increases the move count of the piece
-        Piece capturedPiece = board.removePiece(target);  // Captures any piece on the target position
-        board.placePiece(p, target);  // Places the piece on the target position
-        if (capturedPiece != null) {
-            piecesOnTheBoard.remove(capturedPiece);  // Removes the captured piece from the list
-            capturedPieces.add(capturedPiece);  // Adds the captured piece to the captured pieces list
-        }
+    // Takes back the last move, whether played with performChessMove or makeMove, and publishes the position
+    public void undoLastMove() {
+        unmakeMove();
+        publish();
+    }
 
-        // Special move: Castling King side Rook
-        if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-            Position sourceT = new Position(source.getRow(), source.getColumn() + 3);
-            Position targetT = new Position(source.getRow(), source.getColumn() + 1);
-            ChessPiece rook = (ChessPiece) board.removePiece(sourceT);
-            board.placePiece(rook, targetT);
-            rook.increaseMoveCount();
+    // Takes back the last move without publishing the position, the search step that pairs with makeMove
+    public void unmakeMove() {
+        if (ply == 0) throw new IllegalStateException("There is no move to take back");
+        MoveRecord record = stack[--ply];
+        int move = record.move;
+        int source = Move.source(move);
+        int target = Move.target(move);
+
+        ChessPiece p = board.removePiece(target);
+        if (record.pawn != null) p = record.pawn;  // Puts the pawn back in place of the promoted piece
+        p.decreaseMoveCount();
+        board.placePiece(p, source);
+        if (p instanceof King) {
+            kingSquares[p.getColor().ordinal()] = source;
         }
 
-        // Special move: Castling Queen side Rook
-        if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-            Position sourceT = new Position(source.getRow(), source.getColumn() - 4);
-            Position targetT = new Position(source.getRow(), source.getColumn() - 1);
-            ChessPiece rook = (ChessPiece) board.removePiece(sourceT);
-            board.placePiece(rook, targetT);
-            rook.increaseMoveCount();
+        if (record.capturedPiece != null) {
+            int square = Move.isEnPassant(move) ? target + ((p.getColor() == Color.WHITE) ? 8 : -8) : target;
+            board.placePiece(record.capturedPiece, square);
+            capturedPieces.remove(capturedPieces.size() - 1);  // Captures are undone in the order they were made
         }
 
-        // Special move: En Passant
-        if (p instanceof Pawn) {
-            if (source.getColumn() != target.getColumn() && capturedPiece == null) {
-                Position pawnPosition;
-                if (p.getColor() == Color.WHITE) {
-                    pawnPosition = new Position(target.getRow() + 1, target.getColumn());
-                } else {
-                    pawnPosition = new Position(target.getRow() - 1, target.getColumn());
-                }
-                capturedPiece = board.removePiece(pawnPosition);
-                capturedPieces.add(capturedPiece);
-                piecesOnTheBoard.remove(capturedPiece);
-            }
+        if (Move.isCastling(move)) {
+            boolean kingSide = Move.flags(move) == Move.KING_CASTLE;
+            ChessPiece rook = board.removePiece(kingSide ? source + 1 : source - 1);
+            board.placePiece(rook, kingSide ? source + 3 : source - 4);
+            rook.decreaseMoveCount();
         }
 
-        return capturedPiece;  // Returns the captured piece
+        turn = record.turn;
+        currentPlayer = record.currentPlayer;
+        check = record.check;
+        checkMate = record.checkMate;
+        stalemate = record.stalemate;
+        enPassantVulnerable = record.enPassantVulnerable;
+        promoted = record.promoted;
+        castlingRights = record.castlingRights;
+        enPassantFile = record.enPassantFile;
+        halfmoveClock = record.halfmoveClock;
+        stateKey = record.stateKey;
+        record.capturedPiece = null;  // Doesn't keep pieces alive from the stack
+        record.pawn = null;
     }
 
-    private void undoMove(Position source, Position target, Piece capturedPiece) {
-        ChessPiece p = (ChessPiece) board.removePiece(target);  // Removes the piece from the target position
-        p.decreaseMoveCount();  // Decreases the move count of the piece
-        board.placePiece(p, source);  // Places the piece back to the source position
+    // Takes back moves until only the first ply moves of the stack are left
+    public void undoTo(int ply) {
+        if (ply < 0 || ply > this.ply) throw new IllegalArgumentException("Ply must be between 0 and " + this.ply);
+        while (this.ply > ply) {
+            unmakeMove();
+        }
+        publish();
+    }
 
+    // Moves the pieces and saves the state needed to take the move back; the turn is left to the caller
+    private Piece applyMove(int move) {
+        MoveRecord record = pushRecord();
+        record.move = move;
+
+        int source = Move.source(move);
+        int target = Move.target(move);
+        ChessPiece p = board.removePiece(source);
+        p.increaseMoveCount();
+        boolean pawnMove = p instanceof Pawn;
+
+        ChessPiece capturedPiece = null;
+        if (Move.isEnPassant(move)) {
+            capturedPiece = board.removePiece(target + ((p.getColor() == Color.WHITE) ? 8 : -8));  // The pawn beside the source
+        } else if (Move.isCapture(move)) {
+            capturedPiece = board.removePiece(target);
+        }
         if (capturedPiece != null) {
-            board.placePiece(capturedPiece, target);  // Restores the captured piece to the target position
-            capturedPieces.remove(capturedPiece);  // Removes the piece from the captured list
-            piecesOnTheBoard.add(capturedPiece);  // Adds the piece back to the board
+            capturedPieces.add(capturedPiece);
         }
+        record.capturedPiece = capturedPiece;
 
-        // Undo Castling King side Rook
-        if (p instanceof King && target.getColumn() == source.getColumn() + 2) {
-            Position sourceT = new Position(source.getRow(), source.getColumn() + 3);
-            Position targetT = new Position(source.getRow(), source.getColumn() + 1);
-            ChessPiece rook = (ChessPiece) board.removePiece(targetT);
-            board.placePiece(rook, sourceT);
-            rook.decreaseMoveCount();
+        // Special move: Promotion
+        promoted = null;
+        if (Move.isPromotion(move)) {
+            record.pawn = p;
+            p = createPiece(Move.promotionPiece(move), p.getColor());
+            promoted = p;
+        }
+        board.placePiece(p, target);
+        if (p instanceof King) {
+            kingSquares[p.getColor().ordinal()] = target;
         }
 
-        // Undo Castling Queen side Rook
-        if (p instanceof King && target.getColumn() == source.getColumn() - 2) {
-            Position sourceT = new Position(source.getRow(), source.getColumn() - 4);
-            Position targetT = new Position(source.getRow(), source.getColumn() - 1);
-            ChessPiece rook = (ChessPiece) board.removePiece(targetT);
-            board.placePiece(rook, sourceT);
-            rook.decreaseMoveCount();
+        // Special move: Castling, the rook jumps to the other side of the king
+        if (Move.isCastling(move)) {
+            boolean kingSide = Move.flags(move) == Move.KING_CASTLE;
+            ChessPiece rook = board.removePiece(kingSide ? source + 3 : source - 4);
+            board.placePiece(rook, kingSide ? source + 1 : source - 1);
+            rook.increaseMoveCount();
         }
 
-        // Undo En Passant
-        if (p instanceof Pawn) {
-            if (source.getColumn() != target.getColumn() && capturedPiece == enPassantVulnerable) {
-                ChessPiece pawn = (ChessPiece) board.removePiece(target);
-                Position pawnPosition;
-                if (p.getColor() == Color.WHITE) {
-                    pawnPosition = new Position(3, target.getColumn());
-                } else {
-                    pawnPosition = new Position(4, target.getColumn());
-                }
-                board.placePiece(pawn, pawnPosition);
-            }
+        // Special move: En Passant
+        enPassantVulnerable = (Move.flags(move) == Move.DOUBLE_PAWN_PUSH) ? p : null;
+        halfmoveClock = (pawnMove || capturedPiece != null) ? 0 : halfmoveClock + 1;
+        return capturedPiece;
+    }
+
+    private MoveRecord pushRecord() {
+        if (ply == stack.length) stack = Arrays.copyOf(stack, ply * 2);
+        MoveRecord record = stack[ply];
+        if (record == null) {
+            record = new MoveRecord();  // Created on first use of each slot, then reused for every later move at that ply
+            stack[ply] = record;
         }
+        ply++;
+        record.turn = turn;
+        record.currentPlayer = currentPlayer;
+        record.check = check;
+        record.checkMate = checkMate;
+        record.stalemate = stalemate;
+        record.enPassantVulnerable = enPassantVulnerable;
+        record.promoted = promoted;
+        record.castlingRights = castlingRights;
+        record.enPassantFile = enPassantFile;
+        record.halfmoveClock = halfmoveClock;
+        record.stateKey = stateKey;
+        record.pawn = null;
+        return record;
     }
 
     private void validateSourcePosition(Position position) {
@@ -238,54 +563,84 @@ public class ChessMatch {
     private void nextTurn() {
         turn++;
         currentPlayer = (currentPlayer == Color.WHITE) ? Color.BLACK : Color.WHITE;  // Switches the current player
+        stateKey ^= Zobrist.sideToMove(Color.BLACK);  // Flips the side to move in the position key
     }
 
-    private Color opponent(Color color) {
-        return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;  // Returns the opponent's color
+    private void updateStateKey() {
+        int rights = castlingRights();
+        if (rights != castlingRights) {
+            stateKey ^= Zobrist.castling(castlingRights) ^ Zobrist.castling(rights);  // Swaps the old rights out of the key
+            castlingRights = rights;
+        }
+        int file = enPassantFile();
+        if (file != enPassantFile) {
+            if (enPassantFile >= 0) stateKey ^= Zobrist.enPassant(enPassantFile);
+            if (file >= 0) stateKey ^= Zobrist.enPassant(file);
+            enPassantFile = file;
+        }
+    }
+
+    private int castlingRights() {
+        int rights = 0;
+        if (canCastle(Color.WHITE, 7)) rights |= Zobrist.WHITE_KING_SIDE;
+        if (canCastle(Color.WHITE, 0)) rights |= Zobrist.WHITE_QUEEN_SIDE;
+        if (canCastle(Color.BLACK, 7)) rights |= Zobrist.BLACK_KING_SIDE;
+        if (canCastle(Color.BLACK, 0)) rights |= Zobrist.BLACK_QUEEN_SIDE;
+        return rights;
     }
 
-    private ChessPiece king(Color color) {
-        List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece) x).getColor() == color).toList();
-        for (Piece p : list) {
-            if (p instanceof King) return (ChessPiece) p;  // Finds and returns the king of the specified color
+    private boolean canCastle(Color color, int rookColumn) {
+        int homeRow = (color == Color.WHITE) ? 7 : 0;
+        ChessPiece king = board.piece(ChessBoard.square(homeRow, 4));
+        ChessPiece rook = board.piece(ChessBoard.square(homeRow, rookColumn));
+        return king instanceof King && king.getColor() == color && king.getMoveCount() == 0
+                && rook instanceof Rook && rook.getColor() == color && rook.getMoveCount() == 0;  // Neither piece has moved yet
+    }
+
+    private int enPassantFile() {
+        if (enPassantVulnerable == null || enPassantVulnerable.getColor() == currentPlayer) return -1;
+        int target = enPassantVulnerable.getSquare() + ((currentPlayer == Color.WHITE) ? -8 : 8);
+        if ((Attacks.pawn(enPassantVulnerable.getColor(), target) & board.getPieces(currentPlayer, PieceType.PAWN)) == 0) {
+            return -1;  // Only hashed when a pawn can actually take en passant, so transpositions still match
         }
-        throw new IllegalStateException("There is no " + color + " king on the board");  // Throws an exception if no king is found
+        return target & 7;
+    }
+
+    private Color opponent(Color color) {
+        return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;  // Returns the opponent's color
     }
 
     private boolean testCheck(Color color) {
-        Position kingPosition = king(color).getChessPosition().toPosition();  // Gets the position of the king
-        List<Piece> opponentPieces = piecesOnTheBoard.stream().filter(x -> ((ChessPiece) x).getColor() == opponent(color)).toList();
-        for (Piece p : opponentPieces) {
-            boolean[][] mat = p.possibleMoves();  // Gets possible moves for each opponent piece
-            if (mat[kingPosition.getRow()][kingPosition.getColumn()]) return true;  // Checks if any opponent piece can attack the king
-        }
-        return false;  // Returns false if the king is not in check
+        return board.isSquareAttacked(kingSquares[color.ordinal()], opponent(color));  // Checks if any opponent piece attacks the king
     }
 
     private boolean testCheckMate(Color color) {
         if (!testCheck(color)) return false;  // Returns false if the king is not in check
-        List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece) x).getColor() == color).toList();
-        for (Piece p : list) {
-            boolean[][] mat = p.possibleMoves();  // Gets possible moves for each piece of the specified color
-            for (int i = 0; i < board.getRows(); i++) {
-                for (int j = 0; j < board.getColumns(); j++) {
-                    if (mat[i][j]) {
-                        Position source = ((ChessPiece) p).getChessPosition().toPosition();
-                        Position target = new Position(i, j);
-                        Piece capturedPiece = makeMove(source, target);  // Makes the move
-                        boolean testCheck = testCheck(color);  // Checks if the king is still in check
-                        undoMove(source, target, capturedPiece);  // Undoes the move
-                        if (!testCheck) return false;  // Returns false if there is a valid move that gets the king out of check
-                    }
-                }
-            }
-        }
-        return true;  // Returns true if no valid move gets the king out of check (checkmate)
+        return !hasLegalMove(color);  // Checkmate when no legal move gets the king out of check
+    }
+
+    private boolean hasMoved(PieceType type, Color color, int square, int rights) {
+        int homeRow = (color == Color.WHITE) ? 7 : 0;
+        int kingSide = (color == Color.WHITE) ? Zobrist.WHITE_KING_SIDE : Zobrist.BLACK_KING_SIDE;
+        int queenSide = (color == Color.WHITE) ? Zobrist.WHITE_QUEEN_SIDE : Zobrist.BLACK_QUEEN_SIDE;
+        return switch (type) {
+            case PAWN -> (square >>> 3) != ((color == Color.WHITE) ? 6 : 1);  // A pawn off its start row has moved
+            case KING -> square != ChessBoard.square(homeRow, 4) || (rights & (kingSide | queenSide)) == 0;
+            case ROOK -> !(square == ChessBoard.square(homeRow, 7) && (rights & kingSide) != 0)
+                    && !(square == ChessBoard.square(homeRow, 0) && (rights & queenSide) != 0);
+            default -> false;
+        };
     }
 
     private void placeNewPiece(char column, int row, ChessPiece piece) {
-        board.placePiece(piece, new ChessPosition(column, row).toPosition());  // Places a new piece on the board
-        piecesOnTheBoard.add(piece);  // Adds the piece to the list of pieces on the board
+        placeNewPiece(piece, new ChessPosition(column, row).toPosition());
+    }
+
+    private void placeNewPiece(ChessPiece piece, Position position) {
+        board.placePiece(piece, position);  // Places a new piece on the board
+        if (piece instanceof King) {
+            kingSquares[piece.getColor().ordinal()] = ChessBoard.square(position);
+        }
     }
 
     private void initialSetup() {
@@ -0,0 +1,75 @@
+package chess;
+
+public class ChessMove {
+    private int move;  // Packed as in Move
+
+    public ChessMove(int move) {
+        this.move = move;  // A packed move, capture, castling and en passant flags included
+    }
+
+    public ChessMove(ChessPosition source, ChessPosition target, PieceType promotion) {
+        // Only the promotion is known from the squares alone; findLegalMove returns the move with every flag set
+        int from = ChessBoard.square(source.toPosition());
+        int to = ChessBoard.square(target.toPosition());
+        this.move = (promotion == null) ? Move.of(from, to, Move.QUIET) : Move.promotion(from, to, promotion, false);
+    }
+
+    public ChessMove(ChessPosition source, ChessPosition target) {
+        this(source, target, null);
+    }
+
+    public ChessPosition getSource() {
+        return ChessPosition.fromPosition(ChessBoard.position(getSourceSquare()));
+    }
+
+    public ChessPosition getTarget() {
+        return ChessPosition.fromPosition(ChessBoard.position(getTargetSquare()));
+    }
+
+    public PieceType getPromotion() {
+        return Move.promotionPiece(move);  // Piece a pawn promotes to, or null for any other move
+    }
+
+    public boolean isCapture() {
+        return Move.isCapture(move);  // Set by the move generator, en passant included
+    }
+
+    public int getSourceSquare() {
+        return Move.source(move);  // Bitboard square index, row * 8 + column
+    }
+
+    public int getTargetSquare() {
+        return Move.target(move);
+    }
+
+    public int getMove() {
+        return move;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ChessMove other)) return false;
+        return getSourceSquare() == other.getSourceSquare() && getTargetSquare() == other.getTargetSquare()
+                && getPromotion() == other.getPromotion();
+    }
+
+    @Override
+    public int hashCode() {
+        PieceType promotion = getPromotion();
+        return (getSourceSquare() * 64 + getTargetSquare()) * 8 + (promotion == null ? 0 : promotion.ordinal() + 1);
+    }
+
+    @Override
+    public String toString() {
+        String s = getSource().toString() + getTarget();  // Coordinate notation, such as e2e4 or e7e8Q
+        PieceType promotion = getPromotion();
+        if (promotion == null) return s;
+        return switch (promotion) {
+            case KNIGHT -> s + "N";
+            case BISHOP -> s + "B";
+            case ROOK -> s + "R";
+            default -> s + "Q";
+        };
+    }
+}
@@ -17,10 +17,16 @@ public abstract class ChessPiece extends Piece {
         return color;
     }
 
+    public abstract PieceType getType();  // Each specific piece reports its type, used to index the bitboards
+
     public int getMoveCount() {
         return moveCount;  // Returns the number of moves the piece has made
     }
 
+    void setMoveCount(int moveCount) {
+        this.moveCount = moveCount;  // Used when a match is copied or rebuilt
+    }
+
     public void increaseMoveCount() {
         moveCount++;  // Increases the move count
     }
@@ -33,6 +39,37 @@ public abstract class ChessPiece extends Piece {
         return ChessPosition.fromPosition(position);  // Converts the position to a ChessPosition
     }
 
+    @Override
+    public abstract long possibleMovesMask();  // Each specific piece generates its moves straight into a bitboard
+
+    @Override
+    public boolean[][] possibleMoves() {
+        boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
+        long mask = possibleMovesMask();
+        while (mask != 0) {
+            int square = Long.numberOfTrailingZeros(mask);  // Expands the move mask into the matrix used by the UI
+            mask &= mask - 1;
+            mat[square >>> 3][square & 7] = true;
+        }
+        return mat;
+    }
+
+    protected ChessBoard getChessBoard() {
+        return (ChessBoard) getBoard();  // Chess pieces always live on a ChessBoard
+    }
+
+    protected int getSquare() {
+        return ChessBoard.square(position);  // Bitboard square index of the piece
+    }
+
+    protected long getOwnPieces() {
+        return getChessBoard().getPieces(color);
+    }
+
+    protected long getOpponentPieces() {
+        return getChessBoard().getPieces(color == Color.WHITE ? Color.BLACK : Color.WHITE);
+    }
+
     protected boolean isThereOpponentPiece(Position position) {
         ChessPiece p = (ChessPiece) getBoard().piece(position);  // Gets the piece at the specified position
         return p != null && p.getColor() != color;  // Checks if there is an opponent piece at the position
@@ -22,6 +22,10 @@ public class ChessPosition {
         return row;
     }
 
+    public int toSquare() {
+        return (8 - row) * 8 + (column - 'a');  // Converts ChessPosition to a bitboard square index, a8 = 0 to h1 = 63
+    }
+
     protected Position toPosition() {
         return new Position(8 - row, column - 'a');  // Converts ChessPosition to Position
     }
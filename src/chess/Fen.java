@@ -0,0 +1,240 @@
+package chess;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+// Forsyth-Edwards Notation: reads a position into a new ChessMatch and writes one out. The parser reads
+// straight from a CharSequence or a ByteBuffer window and never creates a String, so EPD suites of
+// millions of lines can be loaded from a mapped file. EPD lines are accepted too: only the first four
+// fields are required, and anything after the position fields, such as EPD operations, is ignored.
+public final class Fen {
+    public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private static final String PIECE_LETTERS = "PNBRQK";  // Indexed by PieceType
+
+    private Fen() {
+    }
+
+    public static ChessMatch parse(CharSequence fen) {
+        return parse(fen, 0, fen.length());
+    }
+
+    // Parses the characters from start up to, not including, end
+    public static ChessMatch parse(CharSequence fen, int start, int end) {
+        return new ChessMatch(parseSnapshot(fen, start, end));
+    }
+
+    // Parses the bytes from offset up to offset + length, without moving the buffer's position
+    public static ChessMatch parse(ByteBuffer buffer, int offset, int length) {
+        return parse(new AsciiSequence(buffer, offset, length), 0, length);
+    }
+
+    // Parses every non-empty line between the buffer's position and limit, one match per line, in order
+    public static void parseLines(ByteBuffer buffer, Consumer<ChessMatch> action) {
+        AsciiSequence line = new AsciiSequence(buffer, 0, 0);  // One view, moved from line to line
+        int start = buffer.position();
+        int limit = buffer.limit();
+        while (start < limit) {
+            int end = start;
+            while (end < limit && buffer.get(end) != '\n') {
+                end++;
+            }
+            int length = end - start;
+            if (length > 0 && buffer.get(end - 1) == '\r') length--;
+            if (length > 0) {
+                line.reset(buffer, start, length);
+                action.accept(parse(line, 0, length));
+            }
+            start = end + 1;
+        }
+    }
+
+    private static PositionSnapshot parseSnapshot(CharSequence fen, int start, int end) {
+        Cursor cursor = new Cursor(fen, start, end);
+        long[] pieces = new long[4];
+        int[] kings = new int[2];
+
+        // Field 1: piece placement, rank 8 first, which is row 0 of the board
+        int row = 0;
+        int column = 0;
+        while (cursor.hasNext() && cursor.peek() != ' ') {
+            char c = cursor.next();
+            if (c == '/') {
+                if (column != 8) throw cursor.error("rank " + (8 - row) + " doesn't have 8 squares");
+                row++;
+                column = 0;
+            } else if (c >= '1' && c <= '8') {
+                column += c - '0';
+            } else {
+                int type = PIECE_LETTERS.indexOf(Character.toUpperCase(c));
+                if (type < 0) throw cursor.error("unknown piece '" + c + "'");
+                if (row > 7 || column > 7) throw cursor.error("too many squares");
+                Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+                PieceType pieceType = PieceType.values()[type];
+                int square = ChessBoard.square(row, column);
+                if (pieceType == PieceType.PAWN && (row == 0 || row == 7)) throw cursor.error("pawn on the first or last rank");
+                if (pieceType == PieceType.KING) kings[color.ordinal()]++;
+                pieces[square >>> 4] |= (long) PositionSnapshot.pieceCode(color, pieceType) << ((square & 15) * 4);
+                column++;
+            }
+            if (column > 8) throw cursor.error("rank " + (8 - row) + " has more than 8 squares");
+        }
+        if (row != 7 || column != 8) throw cursor.error("the board doesn't have 8 ranks of 8 squares");
+        if (kings[0] != 1 || kings[1] != 1) throw cursor.error("each side needs exactly one king");
+
+        // Field 2: side to move
+        cursor.skipSpaces();
+        char side = cursor.hasNext() ? cursor.next() : ' ';
+        if (side != 'w' && side != 'b') throw cursor.error("side to move must be w or b");
+        Color sideToMove = (side == 'w') ? Color.WHITE : Color.BLACK;
+
+        // Field 3: castling rights
+        cursor.skipSpaces();
+        int rights = 0;
+        if (cursor.hasNext() && cursor.peek() == '-') {
+            cursor.next();
+        } else {
+            while (cursor.hasNext() && cursor.peek() != ' ') {
+                rights |= switch (cursor.next()) {
+                    case 'K' -> Zobrist.WHITE_KING_SIDE;
+                    case 'Q' -> Zobrist.WHITE_QUEEN_SIDE;
+                    case 'k' -> Zobrist.BLACK_KING_SIDE;
+                    case 'q' -> Zobrist.BLACK_QUEEN_SIDE;
+                    default -> throw cursor.error("castling rights must be made of K, Q, k and q, or be -");
+                };
+            }
+        }
+
+        // Field 4: en passant target square, the square the pawn that just moved two squares skipped over
+        cursor.skipSpaces();
+        int enPassantFile = -1;
+        if (cursor.hasNext() && cursor.peek() == '-') {
+            cursor.next();
+        } else {
+            char file = cursor.hasNext() ? cursor.next() : ' ';
+            char rank = cursor.hasNext() ? cursor.next() : ' ';
+            char expected = (sideToMove == Color.WHITE) ? '6' : '3';
+            if (file < 'a' || file > 'h' || rank != expected) throw cursor.error("en passant square must be on rank " + expected + " or be -");
+            int pawnSquare = ChessBoard.square((sideToMove == Color.WHITE) ? 3 : 4, file - 'a');
+            int pawnCode = PositionSnapshot.pieceCode((sideToMove == Color.WHITE) ? Color.BLACK : Color.WHITE, PieceType.PAWN);
+            if ((int) (pieces[pawnSquare >>> 4] >>> ((pawnSquare & 15) * 4) & 0xF) != pawnCode) {
+                throw cursor.error("there is no pawn that can be taken en passant");
+            }
+            enPassantFile = file - 'a';
+        }
+
+        // Fields 5 and 6: halfmove clock and move number, which EPD leaves out
+        int halfmoveClock = 0;
+        int moveNumber = 1;
+        cursor.skipSpaces();
+        if (cursor.hasDigit()) {
+            halfmoveClock = cursor.nextNumber();
+            cursor.skipSpaces();
+            if (cursor.hasDigit()) moveNumber = Math.max(cursor.nextNumber(), 1);
+        }
+        int turn = 2 * moveNumber - ((sideToMove == Color.WHITE) ? 1 : 0);  // Turns count plies from 1
+        return new PositionSnapshot(pieces, sideToMove, rights, enPassantFile, halfmoveClock, turn, 0L);
+    }
+
+    public static String toFen(ChessMatch match) {
+        StringBuilder sb = new StringBuilder(90);
+        appendFen(match, sb);
+        return sb.toString();
+    }
+
+    public static void appendFen(ChessMatch match, StringBuilder sb) {
+        appendFen(match.snapshot(), sb);
+    }
+
+    // For a snapshot taken or published earlier, such as one read by a spectator thread
+    public static String toFen(PositionSnapshot snapshot) {
+        StringBuilder sb = new StringBuilder(90);
+        appendFen(snapshot, sb);
+        return sb.toString();
+    }
+
+    public static void appendFen(PositionSnapshot snapshot, StringBuilder sb) {
+        for (int row = 0; row < 8; row++) {
+            int empty = 0;
+            for (int column = 0; column < 8; column++) {
+                int square = ChessBoard.square(row, column);
+                PieceType type = snapshot.getPieceType(square);
+                if (type == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) sb.append((char) ('0' + empty));
+                empty = 0;
+                char letter = PIECE_LETTERS.charAt(type.ordinal());
+                sb.append(snapshot.getPieceColor(square) == Color.WHITE ? letter : Character.toLowerCase(letter));
+            }
+            if (empty > 0) sb.append((char) ('0' + empty));
+            if (row < 7) sb.append('/');
+        }
+        sb.append(snapshot.getSideToMove() == Color.WHITE ? " w " : " b ");
+
+        int rights = snapshot.getCastlingRights();
+        if (rights == 0) sb.append('-');
+        if ((rights & Zobrist.WHITE_KING_SIDE) != 0) sb.append('K');
+        if ((rights & Zobrist.WHITE_QUEEN_SIDE) != 0) sb.append('Q');
+        if ((rights & Zobrist.BLACK_KING_SIDE) != 0) sb.append('k');
+        if ((rights & Zobrist.BLACK_QUEEN_SIDE) != 0) sb.append('q');
+
+        int file = snapshot.getEnPassantFile();
+        if (file < 0) {
+            sb.append(" -");
+        } else {
+            sb.append(' ').append((char) ('a' + file)).append(snapshot.getSideToMove() == Color.WHITE ? '6' : '3');
+        }
+        sb.append(' ').append(snapshot.getHalfmoveClock()).append(' ').append((snapshot.getTurn() + 1) / 2);
+    }
+
+    // Reads a CharSequence window left to right, reporting errors with the text being parsed
+    private static final class Cursor {
+        private final CharSequence text;
+        private final int start;
+        private final int end;
+        private int index;
+
+        Cursor(CharSequence text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+            this.index = start;
+        }
+
+        boolean hasNext() {
+            return index < end;
+        }
+
+        char peek() {
+            return text.charAt(index);
+        }
+
+        char next() {
+            return text.charAt(index++);
+        }
+
+        boolean hasDigit() {
+            return hasNext() && peek() >= '0' && peek() <= '9';
+        }
+
+        int nextNumber() {
+            int value = 0;
+            while (hasDigit()) {
+                value = value * 10 + (next() - '0');
+            }
+            return value;
+        }
+
+        void skipSpaces() {
+            while (hasNext() && (peek() == ' ' || peek() == '\t')) {
+                index++;
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid FEN \"" + text.subSequence(start, end) + "\": " + message);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// Read side of the binary game archive written by GameArchiveWriter. The file is memory-mapped and any
+// game can be read directly through the offset index. The layout, all numbers little-endian:
+//   header:  magic "CGA1" (4 bytes), reserved (4 bytes)
+//   games:   tag count (1), then per tag name length (1), name, value length (2), value in UTF-8;
+//            result (1: 0 for *, 1 for 1-0, 2 for 0-1, 3 for 1/2-1/2), ply count (2), one byte per ply
+//   index:   file offset of each game (8 bytes each)
+//   trailer: index offset (8), game count (8), magic (4)
+// A ply is stored as the position of the move in ChessMatch.legalMoves(MoveList), which is why a move
+// takes one byte: no position has more than 218 legal moves. Reading a game replays it to turn the
+// indexes back into moves, so the move generator's order is part of the format.
+public class GameArchive implements Closeable {
+    static final int MAGIC = 0x31414743;  // "CGA1" read little-endian
+    static final int HEADER_BYTES = 8;
+    static final int TRAILER_BYTES = 20;
+    static final int MAX_GAME_BYTES = 1 << 24;  // The writer rejects bigger games, so one fits in a mapped chunk
+    static final String[] RESULTS = {"*", "1-0", "0-1", "1/2-1/2"};
+
+    private static final int CHUNK_SHIFT = 30;  // Mapped 1 GB at a time, each chunk overlapping the next by a game
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final long indexOffset;
+    private final long gameCount;
+
+    public GameArchive(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES) throw new IOException("Not a game archive: " + path);
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(trailer, size - TRAILER_BYTES);
+            indexOffset = trailer.getLong(0);
+            gameCount = trailer.getLong(8);
+            if (trailer.getInt(16) != MAGIC || indexOffset + gameCount * Long.BYTES != size - TRAILER_BYTES) {
+                throw new IOException("Not a game archive, or not closed properly: " + path);
+            }
+            int count = (int) ((size + (1L << CHUNK_SHIFT) - 1) >>> CHUNK_SHIFT);
+            chunks = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = (long) i << CHUNK_SHIFT;
+                long length = Math.min((1L << CHUNK_SHIFT) + MAX_GAME_BYTES, size - start);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    public PgnGame read(long index) {
+        ByteBuffer game = game(index);
+        Map<String, String> headers = readHeaders(game);
+        String result = RESULTS[game.get() & 3];
+        int[] moves = new int[game.getShort() & 0xFFFF];
+        replay(game, headers, moves, moves.length);
+        return new PgnGame(headers, moves, result, null);
+    }
+
+    // The position of a game after its first plies moves, straight from the archive
+    public ChessMatch replay(long index, int plies) {
+        ByteBuffer game = game(index);
+        Map<String, String> headers = readHeaders(game);
+        game.get();  // Result
+        int count = game.getShort() & 0xFFFF;
+        if (plies < 0 || plies > count) throw new IllegalArgumentException("Game " + index + " has " + count + " plies");
+        return replay(game, headers, null, plies);
+    }
+
+    // Lazy stream of every game in archive order
+    public Stream<PgnGame> games() {
+        return LongStream.range(0, gameCount).mapToObj(this::read);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Buffer positioned at the start of a game, within the chunk its offset falls in
+    private ByteBuffer game(long index) {
+        if (index < 0 || index >= gameCount) {
+            throw new IndexOutOfBoundsException("Game " + index + " out of bounds for " + gameCount + " games");
+        }
+        long offset = readLong(indexOffset + index * Long.BYTES);
+        ByteBuffer chunk = chunks[(int) (offset >>> CHUNK_SHIFT)].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        chunk.position((int) (offset & ((1L << CHUNK_SHIFT) - 1)));
+        return chunk;
+    }
+
+    private static Map<String, String> readHeaders(ByteBuffer game) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        int tags = game.get() & 0xFF;
+        for (int i = 0; i < tags; i++) {
+            String name = string(game, game.get() & 0xFF);
+            headers.put(name, string(game, game.getShort() & 0xFFFF));
+        }
+        return headers;
+    }
+
+    // Plays the stored legal-move indexes from the start position, filling in the moves when asked for them
+    private static ChessMatch replay(ByteBuffer game, Map<String, String> headers, int[] moves, int plies) {
+        ChessMatch match = PgnGame.startPosition(headers);
+        MoveList legalMoves = new MoveList();
+        for (int ply = 0; ply < plies; ply++) {
+            legalMoves.clear();
+            match.legalMoves(legalMoves);
+            int move = legalMoves.get(game.get() & 0xFF);
+            if (moves != null) moves[ply] = move;
+            match.makeMove(move);
+        }
+        match.finishMoves();  // Checkmate, stalemate and the published position, as PgnGame.replay leaves them
+        return match;
+    }
+
+    private long readLong(long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)].getLong((int) (offset & ((1L << CHUNK_SHIFT) - 1)));
+    }
+
+    private static String string(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
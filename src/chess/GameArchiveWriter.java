@@ -0,0 +1,153 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+// Writes games in the binary archive format described in GameArchive. Games are appended through a
+// FileChannel as they come; their offsets go to a temporary file and are copied to the end on close,
+// so the writer's memory use doesn't grow with the number of games.
+public class GameArchiveWriter implements Closeable {
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final FileChannel channel;
+    private final Path indexPath;
+    private final FileChannel index;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer indexBuffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private final MoveList legalMoves = new MoveList();
+    private long position;  // File offset the next byte written will land at
+    private long gameCount;
+    private boolean closed;
+
+    public GameArchiveWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        indexPath = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".index");
+        index = FileChannel.open(indexPath, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        buffer.putInt(GameArchive.MAGIC).putInt(0);
+        position = GameArchive.HEADER_BYTES;
+    }
+
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    // Appends a game: its tags, its result and its moves. Every move must be legal from the game's start position,
+    // and a game the reader stopped at a bad move is refused: the archive has no way to say it was cut short.
+    public void write(PgnGame game) throws IOException {
+        if (!game.isValid()) throw new IllegalArgumentException("Game is not valid: " + game.getError());
+        Map<String, String> headers = game.getHeaders();
+        if (headers.size() > 0xFF) throw new IllegalArgumentException("A game can have at most 255 tags");
+        if (game.getMoveCount() > 0xFFFF) throw new IllegalArgumentException("A game can have at most 65535 plies");
+        int result = resultCode(game.getResult());
+
+        byte[][] tags = new byte[headers.size() * 2][];
+        int bytes = 1 + 1 + 2 + game.getMoveCount();
+        int i = 0;
+        for (Map.Entry<String, String> tag : headers.entrySet()) {
+            tags[i] = tag.getKey().getBytes(StandardCharsets.UTF_8);
+            tags[i + 1] = tag.getValue().getBytes(StandardCharsets.UTF_8);
+            if (tags[i].length > 0xFF || tags[i + 1].length > 0xFFFF) {
+                throw new IllegalArgumentException("Tag " + tag.getKey() + " is too long for the archive");
+            }
+            bytes += 1 + tags[i].length + 2 + tags[i + 1].length;
+            i += 2;
+        }
+        if (bytes > GameArchive.MAX_GAME_BYTES) throw new IllegalArgumentException("Game is too big for the archive");
+
+        // Moves become their position in the legal move list, found by replaying the game
+        byte[] plies = new byte[game.getMoveCount()];
+        ChessMatch match = game.startPosition();
+        for (int ply = 0; ply < plies.length; ply++) {
+            legalMoves.clear();
+            match.legalMoves(legalMoves);
+            int move = game.getMove(ply);
+            int moveIndex = indexOf(move);
+            if (moveIndex < 0) throw new IllegalArgumentException("Move " + Move.toString(move) + " at ply " + (ply + 1) + " is not legal");
+            plies[ply] = (byte) moveIndex;
+            match.makeMove(move);
+        }
+
+        if (indexBuffer.remaining() < Long.BYTES) flush(indexBuffer, index);
+        indexBuffer.putLong(position);
+        reserve(1);
+        buffer.put((byte) headers.size());
+        for (int t = 0; t < tags.length; t += 2) {
+            reserve(1);
+            buffer.put((byte) tags[t].length);
+            put(tags[t]);
+            reserve(2);
+            buffer.putShort((short) tags[t + 1].length);
+            put(tags[t + 1]);
+        }
+        reserve(3);
+        buffer.put((byte) result).putShort((short) plies.length);
+        put(plies);
+        position += bytes;
+        gameCount++;
+    }
+
+    // Writes the index and trailer; the archive can't be read before this
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            flush(buffer, channel);
+            flush(indexBuffer, index);
+            long indexOffset = position;
+            long copied = 0;
+            while (copied < gameCount * Long.BYTES) {
+                copied += index.transferTo(copied, gameCount * Long.BYTES - copied, channel);
+            }
+            buffer.putLong(indexOffset).putLong(gameCount).putInt(GameArchive.MAGIC);
+            flush(buffer, channel);
+        } finally {
+            index.close();
+            channel.close();
+        }
+    }
+
+    private int indexOf(int move) {
+        for (int i = 0; i < legalMoves.size(); i++) {
+            if (legalMoves.get(i) == move) return i;
+        }
+        return -1;
+    }
+
+    private static int resultCode(String result) {
+        for (int code = 0; code < GameArchive.RESULTS.length; code++) {
+            if (GameArchive.RESULTS[code].equals(result)) return code;
+        }
+        return 0;  // Anything else is stored as *
+    }
+
+    private void reserve(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) flush(buffer, channel);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) flush(buffer, channel);
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,91 @@
+package chess;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Replays batches of games through performChessMove on a fixed pool of worker threads, one ChessMatch per
+// game. At most maxPending games are queued or running at once: reading the input stalls until a worker
+// frees a slot, so a huge batch never piles up in memory. Each move is looked up with findLegalMove and the
+// move found is played, so an illegal move ends its game without a ChessException being thrown and caught.
+public class GameValidator {
+    private final int maxPending;
+    private final Semaphore slots;
+    private final ExecutorService workers;
+
+    public GameValidator(int threads, int maxPending) {
+        if (threads < 1 || maxPending < 1) {
+            throw new IllegalArgumentException("Game validation needs at least 1 thread and 1 pending game");
+        }
+        this.maxPending = maxPending;
+        slots = new Semaphore(maxPending);
+        workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "game-validator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Validates every game of the stream and returns when all are done. Results are handed over on the worker
+    // threads as games finish, so not in input order and not from one thread: the consumer must be thread-safe.
+    public synchronized void validate(Stream<List<ChessMove>> games, Consumer<ValidationResult> results) {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Iterator<List<ChessMove>> iterator = games.iterator();
+        long index = 0;
+        while (iterator.hasNext() && failure.get() == null) {
+            List<ChessMove> game = iterator.next();
+            long gameIndex = index++;
+            slots.acquireUninterruptibly();  // Backpressure: waits while maxPending games are in flight
+            workers.execute(() -> {
+                try {
+                    results.accept(validate(gameIndex, game));
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    slots.release();
+                }
+            });
+        }
+        slots.acquireUninterruptibly(maxPending);  // Every slot back means every game is done
+        slots.release(maxPending);
+        if (failure.get() != null) {
+            throw new IllegalStateException("Game validation failed", failure.get());
+        }
+    }
+
+    // Replays one game from the starting position
+    public static ValidationResult validate(long gameIndex, List<ChessMove> moves) {
+        return validate(gameIndex, new ChessMatch(), moves);
+    }
+
+    // Replays one game from the given position, which is left untouched, as for a game with a FEN tag
+    public static ValidationResult validate(long gameIndex, ChessMatch start, List<ChessMove> moves) {
+        ChessMatch match = new ChessMatch(start);
+        int plies = 0;
+        boolean legal = true;
+        for (ChessMove move : moves) {
+            // A move after the game ended is illegal too
+            ChessMove legalMove = (match.getCheckMate() || match.getStalemate()) ? null
+                    : match.resolveMove(move.getSourceSquare(), move.getTargetSquare(), move.getPromotion());
+            if (legalMove == null) {
+                legal = false;
+                break;
+            }
+            match.performChessMove(legalMove);  // The exact move found, so an under-promotion is tested with its own piece
+            plies++;
+        }
+        ValidationResult.Status status = match.getCheckMate() ? ValidationResult.Status.CHECKMATE
+                : match.getStalemate() ? ValidationResult.Status.STALEMATE
+                : match.getCheck() ? ValidationResult.Status.CHECK : ValidationResult.Status.IN_PROGRESS;
+        return new ValidationResult(gameIndex, plies, legal, status, match.getZobristKey());
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
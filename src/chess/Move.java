@@ -0,0 +1,79 @@
+package chess;
+
+// Moves packed in 16 bits of an int: source square in bits 0-5, target square in bits 6-11 and flags in
+// bits 12-15. Squares are bitboard indexes, row * 8 + column. Packed moves need no allocation, so the
+// search, perft and replay loops pass them around in a MoveList instead of creating ChessMove objects.
+public final class Move {
+    public static final int NONE = 0;  // a8 to a8, never a real move
+
+    // Flags: bit 2 marks a capture and bit 3 a promotion, whose piece is in bits 0-1
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    private static final PieceType[] PROMOTIONS = {PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+
+    private Move() {
+    }
+
+    public static int of(int source, int target, int flags) {
+        return source | (target << 6) | (flags << 12);
+    }
+
+    public static int promotion(int source, int target, PieceType piece, boolean capture) {
+        int flags = (capture ? PROMOTION_CAPTURE : PROMOTION) | promotionIndex(piece);
+        return of(source, target, flags);
+    }
+
+    public static int source(int move) {
+        return move & 0x3F;
+    }
+
+    public static int target(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;  // En passant included
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return flags(move) == EN_PASSANT;
+    }
+
+    public static boolean isCastling(int move) {
+        return flags(move) == KING_CASTLE || flags(move) == QUEEN_CASTLE;
+    }
+
+    public static PieceType promotionPiece(int move) {
+        return isPromotion(move) ? PROMOTIONS[flags(move) & 3] : null;  // Null when the move is not a promotion
+    }
+
+    static int promotionIndex(PieceType piece) {
+        return switch (piece) {
+            case KNIGHT -> 0;
+            case BISHOP -> 1;
+            case ROOK -> 2;
+            case QUEEN -> 3;
+            default -> throw new IllegalArgumentException("A pawn can't promote to " + piece);
+        };
+    }
+
+    // Coordinate notation, such as e2e4 or e7e8Q
+    public static String toString(int move) {
+        return new ChessMove(move).toString();
+    }
+}
@@ -0,0 +1,193 @@
+package chess;
+
+// Generates strictly legal moves straight from the bitboards. Pinned pieces are restricted to the line
+// through their king, and when in check only evasions are produced, so no move is ever made and undone
+// to find out if it leaves the king attacked.
+final class MoveGenerator {
+
+    static final int CAPTURES = 1;  // Captures, en passant and every promotion
+    static final int QUIETS = 2;  // Everything else, castling included
+    static final int ALL = CAPTURES | QUIETS;
+
+    private static final PieceType[] PROMOTIONS = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+
+    private MoveGenerator() {
+    }
+
+    static void generate(ChessBoard board, Color us, int kingSquare, ChessPiece enPassantVulnerable, MoveList moves) {
+        generate(board, us, kingSquare, enPassantVulnerable, ~0L, ALL, moves);
+    }
+
+    // Only moves of the pieces on the sources squares, and only the kinds asked for
+    static void generate(ChessBoard board, Color us, int kingSquare, ChessPiece enPassantVulnerable, long sources, int kinds, MoveList moves) {
+        Color them = (us == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        long own = board.getPieces(us);
+        long occupied = board.getOccupied();
+        long kingBit = 1L << kingSquare;
+        long kindMask = 0L;  // Target squares allowed by the kinds; pawn promotions are handled on their own
+        if ((kinds & CAPTURES) != 0) kindMask |= board.getPieces(them);
+        if ((kinds & QUIETS) != 0) kindMask |= ~occupied;
+
+        // King moves: the king itself is removed from the occupancy so it can't hide behind its own square
+        long kingTargets = ((sources & kingBit) != 0) ? Attacks.king(kingSquare) & ~own & kindMask : 0L;
+        while (kingTargets != 0) {
+            int target = Long.numberOfTrailingZeros(kingTargets);
+            kingTargets &= kingTargets - 1;
+            if (board.attackersTo(target, them, (occupied ^ kingBit) & ~(1L << target)) == 0) {
+                moves.add(Move.of(kingSquare, target, ((occupied & (1L << target)) != 0) ? Move.CAPTURE : Move.QUIET));
+            }
+        }
+
+        long checkers = board.attackersTo(kingSquare, them, occupied);
+        if (Long.bitCount(checkers) > 1) return;  // Double check: only the king can move
+
+        // Squares a non-king move may land on: anywhere when not in check, otherwise capture or block the checker
+        long targetMask = ~own;
+        if (checkers != 0) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            targetMask = checkers | Attacks.between(kingSquare, checker);
+        }
+
+        long pinned = pinnedPieces(board, us, them, kingSquare, occupied);
+
+        long pieces = own & sources & ~kingBit & ~board.getPieces(PieceType.PAWN);
+        while (pieces != 0) {
+            int source = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            long targets = pieceAttacks(board.piece(source).getType(), source, occupied) & targetMask & kindMask;
+            if ((pinned & (1L << source)) != 0) targets &= pinRay(board, them, kingSquare, source, occupied);
+            addMoves(source, targets, occupied, moves);
+        }
+
+        generatePawnMoves(board, us, them, kingSquare, occupied, targetMask, pinned, sources, kinds, moves);
+        if ((kinds & CAPTURES) != 0) generateEnPassant(board, us, them, kingSquare, occupied, enPassantVulnerable, sources, moves);
+        if (checkers == 0 && (kinds & QUIETS) != 0 && (sources & kingBit) != 0) generateCastling(board, us, them, kingSquare, occupied, moves);
+    }
+
+    private static long pieceAttacks(PieceType type, int square, long occupied) {
+        return switch (type) {
+            case KNIGHT -> Attacks.knight(square);
+            case BISHOP -> Attacks.bishop(square, occupied);
+            case ROOK -> Attacks.rook(square, occupied);
+            case QUEEN -> Attacks.queen(square, occupied);
+            default -> 0L;
+        };
+    }
+
+    // Own pieces standing alone between the king and an enemy slider that would otherwise attack it
+    private static long pinnedPieces(ChessBoard board, Color us, Color them, int kingSquare, long occupied) {
+        long pinned = 0L;
+        long opponent = board.getPieces(them);
+        long queens = board.getPieces(them, PieceType.QUEEN);
+        long snipers = (Attacks.rook(kingSquare, opponent) & (board.getPieces(them, PieceType.ROOK) | queens))
+                | (Attacks.bishop(kingSquare, opponent) & (board.getPieces(them, PieceType.BISHOP) | queens));
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.between(kingSquare, sniper) & occupied;
+            if (Long.bitCount(blockers) == 1) pinned |= blockers & board.getPieces(us);
+        }
+        return pinned;
+    }
+
+    // Line a pinned piece may still move along: up to and including the pinning piece
+    private static long pinRay(ChessBoard board, Color them, int kingSquare, int pinnedSquare, long occupied) {
+        long opponent = board.getPieces(them);
+        long queens = board.getPieces(them, PieceType.QUEEN);
+        long snipers = (Attacks.rook(kingSquare, opponent) & (board.getPieces(them, PieceType.ROOK) | queens))
+                | (Attacks.bishop(kingSquare, opponent) & (board.getPieces(them, PieceType.BISHOP) | queens));
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long ray = Attacks.between(kingSquare, sniper);
+            if ((ray & (1L << pinnedSquare)) != 0) return ray | (1L << sniper);
+        }
+        return ~0L;
+    }
+
+    private static void generatePawnMoves(ChessBoard board, Color us, Color them, int kingSquare, long occupied,
+                                          long targetMask, long pinned, long sources, int kinds, MoveList moves) {
+        long pawns = board.getPieces(us, PieceType.PAWN) & sources;
+        long opponent = board.getPieces(them);
+        int forward = (us == Color.WHITE) ? -8 : 8;  // White moves up the rows, black moves down
+        int startRow = (us == Color.WHITE) ? 6 : 1;
+        int lastRow = (us == Color.WHITE) ? 0 : 7;
+        while (pawns != 0) {
+            int source = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long targets = Attacks.pawn(us, source) & opponent;
+            int oneStep = source + forward;
+            if ((occupied & (1L << oneStep)) == 0) {
+                targets |= 1L << oneStep;
+                int twoSteps = oneStep + forward;
+                if ((source >>> 3) == startRow && (occupied & (1L << twoSteps)) == 0) {
+                    targets |= 1L << twoSteps;
+                }
+            }
+            targets &= targetMask;
+            if ((pinned & (1L << source)) != 0) targets &= pinRay(board, them, kingSquare, source, occupied);
+            while (targets != 0) {
+                int target = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                boolean capture = (opponent & (1L << target)) != 0;
+                boolean promotes = (target >>> 3) == lastRow;
+                int kind = (capture || promotes) ? CAPTURES : QUIETS;
+                if ((kinds & kind) == 0) continue;
+                if (promotes) {
+                    for (PieceType promotion : PROMOTIONS) {
+                        moves.add(Move.promotion(source, target, promotion, capture));
+                    }
+                } else if (capture) {
+                    moves.add(Move.of(source, target, Move.CAPTURE));
+                } else {
+                    moves.add(Move.of(source, target, (target == source + 2 * forward) ? Move.DOUBLE_PAWN_PUSH : Move.QUIET));
+                }
+            }
+        }
+    }
+
+    private static void generateEnPassant(ChessBoard board, Color us, Color them, int kingSquare, long occupied,
+                                          ChessPiece enPassantVulnerable, long sources, MoveList moves) {
+        if (enPassantVulnerable == null || enPassantVulnerable.getColor() != them) return;
+        int victim = enPassantVulnerable.getSquare();
+        int target = victim + ((us == Color.WHITE) ? -8 : 8);  // The square the vulnerable pawn skipped over
+        long capturers = Attacks.pawn(them, target) & board.getPieces(us, PieceType.PAWN) & sources;
+        while (capturers != 0) {
+            int source = Long.numberOfTrailingZeros(capturers);
+            capturers &= capturers - 1;
+            // Two pawns leave the same line at once, so the cheapest exact test is to replay the occupancy
+            long after = (occupied ^ (1L << source) ^ (1L << victim)) | (1L << target);
+            if (board.attackersTo(kingSquare, them, after) == 0) {
+                moves.add(Move.of(source, target, Move.EN_PASSANT));
+            }
+        }
+    }
+
+    private static void generateCastling(ChessBoard board, Color us, Color them, int kingSquare, long occupied, MoveList moves) {
+        int homeRow = (us == Color.WHITE) ? 7 : 0;
+        if (kingSquare != ChessBoard.square(homeRow, 4) || board.piece(kingSquare).getMoveCount() != 0) return;
+        // King side: f and g empty, and neither attacked
+        if (canCastleWith(board, us, kingSquare + 3) && (occupied & (3L << (kingSquare + 1))) == 0
+                && !board.isSquareAttacked(kingSquare + 1, them) && !board.isSquareAttacked(kingSquare + 2, them)) {
+            moves.add(Move.of(kingSquare, kingSquare + 2, Move.KING_CASTLE));
+        }
+        // Queen side: b, c and d empty, and c and d not attacked
+        if (canCastleWith(board, us, kingSquare - 4) && (occupied & (7L << (kingSquare - 3))) == 0
+                && !board.isSquareAttacked(kingSquare - 1, them) && !board.isSquareAttacked(kingSquare - 2, them)) {
+            moves.add(Move.of(kingSquare, kingSquare - 2, Move.QUEEN_CASTLE));
+        }
+    }
+
+    private static boolean canCastleWith(ChessBoard board, Color us, int rookSquare) {
+        ChessPiece p = board.piece(rookSquare);
+        return p != null && p.getType() == PieceType.ROOK && p.getColor() == us && p.getMoveCount() == 0;
+    }
+
+    private static void addMoves(int source, long targets, long occupied, MoveList moves) {
+        while (targets != 0) {
+            int target = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            moves.add(Move.of(source, target, ((occupied & (1L << target)) != 0) ? Move.CAPTURE : Move.QUIET));
+        }
+    }
+}
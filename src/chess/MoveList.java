@@ -0,0 +1,52 @@
+package chess;
+
+import java.util.Arrays;
+
+// Growable list of packed moves backed by an int array. It is meant to be cleared and reused, one per
+// ply, so generating moves allocates nothing once the array has grown to fit.
+public class MoveList {
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(256);  // Room for the legal moves of any position, the most known is 218
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[Math.max(capacity, 1)];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) moves = Arrays.copyOf(moves, size * 2);
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        if (index >= size) throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        moves[index] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) return true;
+        }
+        return false;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
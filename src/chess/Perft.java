@@ -0,0 +1,111 @@
+package chess;
+
+import java.io.Serial;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Counts the leaf nodes of the legal move tree to a fixed depth. The counts for well-known positions are
+// published, so any difference points at a move generation bug; the time taken measures its throughput.
+public class Perft {
+    private final ForkJoinPool pool;
+    private final long[] hashKeys;  // Optional table of subtree counts, empty when hashing is off
+    private final long[] hashCounts;
+
+    public Perft(ForkJoinPool pool) {
+        this(pool, 0);
+    }
+
+    public Perft(ForkJoinPool pool, int hashMb) {
+        this.pool = pool;
+        int entries = (hashMb <= 0) ? 0 : Integer.highestOneBit((int) Math.min(((long) hashMb << 20) / 16, 1 << 30));
+        hashKeys = new long[entries];
+        hashCounts = new long[entries];
+    }
+
+    public long count(ChessMatch match, int depth) {
+        long nodes = 0;
+        for (long n : divide(match, depth).values()) {
+            nodes += n;
+        }
+        return nodes;
+    }
+
+    // Leaf count below each root move; the root moves are searched in parallel, each on its own copy of the match
+    public Map<ChessMove, Long> divide(ChessMatch match, int depth) {
+        if (depth < 1) throw new IllegalArgumentException("Perft depth must be at least 1");
+        List<ChessMove> moves = match.legalMoves();
+        List<RootTask> tasks = moves.stream().map(move -> new RootTask(this, match, move, depth - 1)).toList();
+        pool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                invokeAll(tasks);
+                return null;
+            }
+        });
+        Map<ChessMove, Long> result = new LinkedHashMap<>();
+        for (RootTask task : tasks) {
+            result.put(task.move, task.join());
+        }
+        return result;
+    }
+
+    // One move list per remaining depth, reused across the whole subtree
+    private long perft(ChessMatch match, int depth, MoveList[] lists) {
+        if (depth == 0) return 1;
+        MoveList moves = lists[depth];
+        moves.clear();
+        match.legalMoves(moves);
+        if (depth == 1) return moves.size();  // Bulk counting: the leaves are never played
+
+        long key = match.getZobristKey() ^ (depth * 0x9E3779B97F4A7C15L);
+        int index = (int) key & (hashKeys.length - 1);
+        if (hashKeys.length > 0) {
+            long count = hashCounts[index];
+            if ((hashKeys[index] ^ count) == key) return count;  // Same check as the transposition table, safe under races
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            match.makeMove(moves.get(i));
+            nodes += perft(match, depth - 1, lists);
+            match.unmakeMove();
+        }
+
+        if (hashKeys.length > 0) {
+            hashKeys[index] = key ^ nodes;
+            hashCounts[index] = nodes;
+        }
+        return nodes;
+    }
+
+    private static class RootTask extends RecursiveTask<Long> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final Perft perft;
+        private final ChessMatch match;
+        private final ChessMove move;
+        private final int depth;
+
+        RootTask(Perft perft, ChessMatch match, ChessMove move, int depth) {
+            this.perft = perft;
+            this.match = match;
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            ChessMatch copy = new ChessMatch(match);
+            copy.makeMove(move);
+            MoveList[] lists = new MoveList[depth + 1];
+            for (int i = 1; i <= depth; i++) {
+                lists[i] = new MoveList();
+            }
+            return perft.perft(copy, depth, lists);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package chess;
+
+import java.util.Collections;
+import java.util.Map;
+
+// One game read from a PGN file: its tag pairs, its moves packed as in Move, and the result. A game with
+// a move that can't be played holds the moves before it and an error saying which move failed.
+public class PgnGame {
+    private final Map<String, String> headers;
+    private final int[] moves;
+    private final String result;
+    private final String error;
+
+    PgnGame(Map<String, String> headers, int[] moves, String result, String error) {
+        this.headers = Collections.unmodifiableMap(headers);
+        this.moves = moves;
+        this.result = result;
+        this.error = error;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;  // In file order
+    }
+
+    public String getHeader(String name) {
+        return headers.get(name);  // Null when the tag is missing
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    public int getMove(int ply) {
+        return moves[ply];
+    }
+
+    public String getResult() {
+        return result;  // 1-0, 0-1, 1/2-1/2 or * as written after the moves, or the Result tag when they end without one
+    }
+
+    public boolean isValid() {
+        return error == null;
+    }
+
+    public String getError() {
+        return error;  // Null when every move was read and played
+    }
+
+    // Starting position of the game, taken from the FEN tag when there is one
+    public ChessMatch startPosition() {
+        return startPosition(headers);
+    }
+
+    // The position given by the FEN tag, or the standard start; shared with GameArchive
+    static ChessMatch startPosition(Map<String, String> headers) {
+        String fen = headers.get("FEN");
+        return (fen == null) ? new ChessMatch() : Fen.parse(fen);
+    }
+
+    // The position after every move, with checkmate and stalemate worked out and the position published
+    public ChessMatch replay() {
+        ChessMatch match = startPosition();
+        for (int move : moves) {
+            match.makeMove(move);
+        }
+        match.finishMoves();
+        return match;
+    }
+
+    @Override
+    public String toString() {
+        return headers.getOrDefault("White", "?") + " - " + headers.getOrDefault("Black", "?") + " " + result + ", " + moves.length + " plies"
+                + (error == null ? "" : " (" + error + ")");
+    }
+}
@@ -0,0 +1,319 @@
+package chess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Reads games from PGN text, mapping the file into memory a window at a time so archives of any size can
+// be walked. Tokens are offsets into the mapped bytes: only tag names and values become Strings, and SAN
+// moves are matched against the legal moves of the game's ChessMatch straight from the bytes.
+public class PgnReader implements Closeable {
+    private static final long WINDOW_BYTES = 1L << 28;  // Mapped at a time; a MappedByteBuffer can't pass 2 GB anyway
+    private static final long MAX_GAME_BYTES = 1L << 24;  // A game must fit in this, the window is moved before it runs out
+    private static final String PIECE_LETTERS = "PNBRQK";  // Indexed by PieceType
+
+    private final FileChannel channel;  // Null when reading a buffer given by the caller
+    private final long size;
+    private ByteBuffer window;
+    private long windowStart;  // File offset of the window's first byte
+    private int pos;  // Read position within the window
+    private final MoveList legalMoves = new MoveList();
+    private int[] moves = new int[256];
+
+    public PgnReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size = channel.size();
+        map(0);
+    }
+
+    // Reads the bytes between the buffer's position and limit, without moving them
+    public PgnReader(ByteBuffer buffer) {
+        channel = null;
+        window = buffer.slice();
+        size = window.limit();
+    }
+
+    // Lazy, ordered stream of the remaining games; a game is only read when the stream asks for it
+    public Stream<PgnGame> games() {
+        Spliterator<PgnGame> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super PgnGame> action) {
+                PgnGame game = next();
+                if (game == null) return false;
+                action.accept(game);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    // The next game, or null at the end of the input
+    public PgnGame next() {
+        skipBetweenGames();
+        if (pos >= window.limit()) return null;
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        while (pos < window.limit() && peek() == '[') {
+            readTag(headers);
+            skipSpaceAndComments();
+        }
+
+        ChessMatch match;
+        String error = null;
+        try {
+            String fen = headers.get("FEN");
+            match = (fen == null) ? new ChessMatch() : Fen.parse(fen);
+        } catch (IllegalArgumentException e) {
+            match = null;
+            error = e.getMessage();
+        }
+
+        int count = 0;
+        String result = null;
+        while (result == null) {
+            skipSpaceAndComments();
+            if (pos >= window.limit() || peek() == '[') break;  // Movetext ended without a result
+            int start = pos;
+            while (pos < window.limit() && !isDelimiter(peek())) {
+                pos++;
+            }
+            int end = pos;
+            if (end == start) {
+                pos++;  // A stray delimiter such as ')' or '}'
+                continue;
+            }
+            result = result(start, end);
+            if (result != null || error != null) continue;
+
+            start = skipMoveNumber(start, end);
+            if (start == end || isAnnotation(start, end)) continue;
+            int move = decode(match, start, end);
+            if (move == Move.NONE) {
+                error = "Illegal or ambiguous move " + text(start, end) + " at ply " + (count + 1);
+                continue;
+            }
+            match.makeMove(move);
+            if (count == moves.length) moves = Arrays.copyOf(moves, count * 2);
+            moves[count++] = move;
+        }
+        if (result == null) result = headers.getOrDefault("Result", "*");
+        return new PgnGame(headers, Arrays.copyOf(moves, count), result, error);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) channel.close();
+    }
+
+    // Packed legal move for a SAN token such as Nbd7, exd6, O-O-O or e8=N, or Move.NONE when it matches none or several
+    private int decode(ChessMatch match, int start, int end) {
+        // Check and annotation marks, and a trailing e.p., say nothing the legal moves don't
+        while (end > start && "+#!?".indexOf(window.get(end - 1)) >= 0) end--;
+        if (end - start > 4 && equals(end - 4, end, "e.p.")) end -= 4;
+
+        legalMoves.clear();
+        match.legalMoves(legalMoves);
+        if (equals(start, end, "O-O") || equals(start, end, "0-0")) return find(Move.KING_CASTLE);
+        if (equals(start, end, "O-O-O") || equals(start, end, "0-0-0")) return find(Move.QUEEN_CASTLE);
+
+        PieceType type = PieceType.PAWN;
+        int letter = PIECE_LETTERS.indexOf(window.get(start));
+        if (letter > 0) {
+            type = PieceType.values()[letter];
+            start++;
+        }
+        PieceType promotion = null;
+        if (end - start >= 3 && type == PieceType.PAWN) {
+            int promotionLetter = PIECE_LETTERS.indexOf(window.get(end - 1));
+            if (promotionLetter > 0 && promotionLetter < PieceType.KING.ordinal()) {
+                promotion = PieceType.values()[promotionLetter];
+                end--;
+                if (window.get(end - 1) == '=') end--;
+            }
+        }
+        if (end - start < 2) return Move.NONE;
+        int file = window.get(end - 2) - 'a';
+        int rank = window.get(end - 1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) return Move.NONE;
+        int target = ChessBoard.square(7 - rank, file);
+
+        // What is left before the target is disambiguation and the capture mark
+        int fromFile = -1;
+        int fromRow = -1;
+        for (int i = start; i < end - 2; i++) {
+            byte c = window.get(i);
+            if (c >= 'a' && c <= 'h') fromFile = c - 'a';
+            else if (c >= '1' && c <= '8') fromRow = 7 - (c - '1');
+            else if (c != 'x' && c != ':') return Move.NONE;
+        }
+
+        int found = Move.NONE;
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int move = legalMoves.get(i);
+            int source = Move.source(move);
+            if (Move.target(move) != target || Move.promotionPiece(move) != promotion || Move.isCastling(move)) continue;
+            if (match.getPieceType(source) != type) continue;
+            if (fromFile >= 0 && (source & 7) != fromFile) continue;
+            if (fromRow >= 0 && (source >>> 3) != fromRow) continue;
+            if (found != Move.NONE) return Move.NONE;  // Ambiguous
+            found = move;
+        }
+        return found;
+    }
+
+    private int find(int castlingFlag) {
+        for (int i = 0; i < legalMoves.size(); i++) {
+            if (Move.flags(legalMoves.get(i)) == castlingFlag) return legalMoves.get(i);
+        }
+        return Move.NONE;
+    }
+
+    private void readTag(Map<String, String> headers) {
+        pos++;  // [
+        skipSpaces();
+        int nameStart = pos;
+        while (pos < window.limit() && peek() > ' ' && peek() != '"' && peek() != ']') {
+            pos++;
+        }
+        String name = text(nameStart, pos);
+        skipSpaces();
+        StringBuilder value = new StringBuilder();
+        if (pos < window.limit() && peek() == '"') {
+            pos++;
+            while (pos < window.limit() && peek() != '"' && peek() != '\n') {
+                char c = (char) (window.get(pos++) & 0xFF);
+                if (c == '\\' && pos < window.limit()) c = (char) (window.get(pos++) & 0xFF);  // \" and \\ escapes
+                value.append(c);
+            }
+            if (pos < window.limit() && peek() == '"') pos++;
+        }
+        while (pos < window.limit() && peek() != ']' && peek() != '\n') {
+            pos++;
+        }
+        if (pos < window.limit() && peek() == ']') pos++;
+        headers.put(name, value.toString());
+    }
+
+    // Skips to the start of the next game, moving the mapped window forward first if the game might not fit
+    private void skipBetweenGames() {
+        skipSpaceAndComments();
+        if (channel != null && windowStart + window.limit() < size && window.limit() - pos < MAX_GAME_BYTES) {
+            map(windowStart + pos);
+        }
+    }
+
+    private void skipSpaceAndComments() {
+        while (pos < window.limit()) {
+            byte c = peek();
+            if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                pos++;
+            } else if (c == '{') {
+                skipPast('}');
+            } else if (c == ';' || (c == '%' && (pos == 0 || window.get(pos - 1) == '\n'))) {
+                skipPast('\n');  // Rest-of-line comment, or an escaped line
+            } else if (c == '(') {
+                skipVariation();
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void skipVariation() {
+        int depth = 0;
+        while (pos < window.limit()) {
+            byte c = window.get(pos++);
+            if (c == '(') depth++;
+            else if (c == ')' && --depth == 0) return;
+            else if (c == '{') skipPast('}');  // A comment inside a variation may hold parentheses
+        }
+    }
+
+    private void skipPast(char c) {
+        while (pos < window.limit() && window.get(pos++) != c) {
+            // Skips to just after c
+        }
+    }
+
+    private void skipSpaces() {
+        while (pos < window.limit() && (peek() == ' ' || peek() == '\t')) {
+            pos++;
+        }
+    }
+
+    // A move number such as 12. or 12... before a move, when written without a space after it
+    private int skipMoveNumber(int start, int end) {
+        int i = start;
+        while (i < end && window.get(i) >= '0' && window.get(i) <= '9') {
+            i++;
+        }
+        if (i == start || i == end || window.get(i) != '.') return start;
+        while (i < end && window.get(i) == '.') {
+            i++;
+        }
+        return i;
+    }
+
+    private boolean isAnnotation(int start, int end) {
+        byte c = window.get(start);
+        // NAGs and a detached e.p., with any check mark after it, carry no move
+        return c == '$' || c == '.' || (end - start >= 4 && equals(start, start + 4, "e.p."));
+    }
+
+    private String result(int start, int end) {
+        if (equals(start, end, "1-0")) return "1-0";
+        if (equals(start, end, "0-1")) return "0-1";
+        if (equals(start, end, "1/2-1/2")) return "1/2-1/2";
+        if (equals(start, end, "*")) return "*";
+        return null;
+    }
+
+    private static boolean isDelimiter(byte c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '{' || c == '}' || c == '(' || c == ')'
+                || c == '[' || c == ']' || c == ';';
+    }
+
+    private boolean equals(int start, int end, String s) {
+        if (end - start != s.length()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (window.get(start + i) != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private byte peek() {
+        return window.get(pos);
+    }
+
+    private String text(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        window.get(start, bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private void map(long start) {
+        try {
+            long length = Math.min(WINDOW_BYTES, size - start);
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            window = mapped;
+            windowStart = start;
+            pos = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
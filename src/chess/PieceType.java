@@ -0,0 +1,10 @@
+package chess;
+
+public enum PieceType {
+    PAWN,
+    KNIGHT,
+    BISHOP,
+    ROOK,
+    QUEEN,
+    KING  // Enumeration for the type of chess pieces, also used as bitboard index
+}
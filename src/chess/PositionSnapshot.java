@@ -0,0 +1,103 @@
+package chess;
+
+// Immutable, compact copy of a position: 64 four-bit piece codes in four longs, one long of game state and
+// the Zobrist key, 64 bytes with the object header. It holds no piece or board objects, so it can be handed
+// to any number of threads, and each can rebuild its own ChessMatch from it with toMatch().
+public final class PositionSnapshot {
+    // Piece codes: 0 for an empty square, otherwise PieceType ordinal + 1, plus 8 for black
+    private static final int BLACK_BIT = 8;
+
+    // State word: side to move in bit 0, castling rights in bits 1-4, en passant file + 1 in bits 5-8
+    // (0 for none), halfmove clock in bits 9-16 and turn in bits 32-63
+    private static final int CASTLING_SHIFT = 1;
+    private static final int EN_PASSANT_SHIFT = 5;
+    private static final int HALFMOVE_SHIFT = 9;
+    private static final int TURN_SHIFT = 32;
+
+    private final long pieces0;  // Squares 0-15, four bits each
+    private final long pieces1;  // Squares 16-31
+    private final long pieces2;  // Squares 32-47
+    private final long pieces3;  // Squares 48-63
+    private final long state;
+    private final long zobristKey;
+
+    PositionSnapshot(long[] pieces, Color sideToMove, int castlingRights, int enPassantFile, int halfmoveClock, int turn, long zobristKey) {
+        pieces0 = pieces[0];
+        pieces1 = pieces[1];
+        pieces2 = pieces[2];
+        pieces3 = pieces[3];
+        state = ((sideToMove == Color.BLACK) ? 1L : 0L)
+                | ((long) castlingRights << CASTLING_SHIFT)
+                | ((long) (enPassantFile + 1) << EN_PASSANT_SHIFT)
+                | ((long) Math.min(halfmoveClock, 0xFF) << HALFMOVE_SHIFT)
+                | ((long) turn << TURN_SHIFT);
+        this.zobristKey = zobristKey;
+    }
+
+    static int pieceCode(Color color, PieceType type) {
+        return (type.ordinal() + 1) | ((color == Color.BLACK) ? BLACK_BIT : 0);
+    }
+
+    // Piece code of a bitboard square index, row * 8 + column
+    public int getPieceCode(int square) {
+        long word = switch (square >>> 4) {
+            case 0 -> pieces0;
+            case 1 -> pieces1;
+            case 2 -> pieces2;
+            default -> pieces3;
+        };
+        return (int) (word >>> ((square & 15) * 4)) & 0xF;
+    }
+
+    public PieceType getPieceType(int square) {
+        int code = getPieceCode(square);
+        return (code == 0) ? null : PieceType.values()[(code & 7) - 1];  // Null when the square is empty
+    }
+
+    public Color getPieceColor(int square) {
+        int code = getPieceCode(square);
+        if (code == 0) return null;
+        return ((code & BLACK_BIT) != 0) ? Color.BLACK : Color.WHITE;
+    }
+
+    public Color getSideToMove() {
+        return ((state & 1) != 0) ? Color.BLACK : Color.WHITE;
+    }
+
+    public int getCastlingRights() {
+        return (int) (state >>> CASTLING_SHIFT) & 0xF;  // Zobrist castling flags
+    }
+
+    public int getEnPassantFile() {
+        return ((int) (state >>> EN_PASSANT_SHIFT) & 0xF) - 1;  // File the last move double-pushed a pawn on, or -1
+    }
+
+    public int getHalfmoveClock() {
+        return (int) (state >>> HALFMOVE_SHIFT) & 0xFF;
+    }
+
+    public int getTurn() {
+        return (int) (state >>> TURN_SHIFT);
+    }
+
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    public ChessMatch toMatch() {
+        return new ChessMatch(this);  // A new match with its own board and pieces
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PositionSnapshot other)) return false;
+        return pieces0 == other.pieces0 && pieces1 == other.pieces1 && pieces2 == other.pieces2
+                && pieces3 == other.pieces3 && state == other.state;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(zobristKey);
+    }
+}
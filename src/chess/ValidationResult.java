@@ -0,0 +1,55 @@
+package chess;
+
+// Outcome of replaying one game in a GameValidator batch
+public class ValidationResult {
+    public enum Status {
+        IN_PROGRESS,
+        CHECK,
+        CHECKMATE,
+        STALEMATE
+    }
+
+    private final long gameIndex;
+    private final int plies;
+    private final boolean legal;
+    private final Status status;
+    private final long zobristKey;
+
+    ValidationResult(long gameIndex, int plies, boolean legal, Status status, long zobristKey) {
+        this.gameIndex = gameIndex;
+        this.plies = plies;
+        this.legal = legal;
+        this.status = status;
+        this.zobristKey = zobristKey;
+    }
+
+    public long getGameIndex() {
+        return gameIndex;  // Position of the game in the batch, counted from 0
+    }
+
+    public boolean isLegal() {
+        return legal;
+    }
+
+    public int getIllegalPly() {
+        return legal ? 0 : plies + 1;  // Ply of the first illegal move, counted from 1, or 0 when every move was legal
+    }
+
+    public int getPlies() {
+        return plies;  // Moves played before the end of the game or the first illegal move
+    }
+
+    public Status getStatus() {
+        return status;  // Of the position after the last legal move
+    }
+
+    public long getZobristKey() {
+        return zobristKey;  // Of the position after the last legal move
+    }
+
+    @Override
+    public String toString() {
+        return "game " + gameIndex + (legal ? " legal" : " illegal at ply " + getIllegalPly()) + ", " + status
+                + " after " + plies + " plies, key " + Long.toHexString(zobristKey);
+    }
+}
@@ -0,0 +1,60 @@
+package chess;
+
+import java.util.Random;
+
+// Random 64-bit keys for Zobrist hashing: a position key is the XOR of the keys of everything in it,
+// so moving, adding or removing a piece only costs one or two XORs.
+public final class Zobrist {
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+
+    private static final long[][][] PIECES = new long[Color.values().length][PieceType.values().length][64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[8];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        Random random = new Random(0x2B7E151628AED2A6L);  // Fixed seed, so keys are stable between runs
+        for (long[][] byType : PIECES) {
+            for (long[] bySquare : byType) {
+                for (int square = 0; square < 64; square++) {
+                    bySquare[square] = random.nextLong();
+                }
+            }
+        }
+        long[] rights = new long[4];
+        for (int i = 0; i < rights.length; i++) {
+            rights[i] = random.nextLong();
+        }
+        for (int mask = 0; mask < CASTLING.length; mask++) {
+            for (int i = 0; i < rights.length; i++) {
+                if ((mask & (1 << i)) != 0) CASTLING[mask] ^= rights[i];  // One key per right, combined for each set of rights
+            }
+        }
+        for (int file = 0; file < EN_PASSANT.length; file++) {
+            EN_PASSANT[file] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long piece(Color color, PieceType type, int square) {
+        return PIECES[color.ordinal()][type.ordinal()][square];
+    }
+
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    public static long enPassant(int file) {
+        return EN_PASSANT[file];
+    }
+
+    public static long sideToMove(Color color) {
+        return (color == Color.BLACK) ? BLACK_TO_MOVE : 0L;
+    }
+}
@@ -1,10 +1,11 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class King extends ChessPiece {
 
@@ -15,99 +16,45 @@ public class King extends ChessPiece {
         this.chessMatch = chessMatch;  // Constructor for the King piece
     }
 
+    @Override
+    public PieceType getType() {
+        return PieceType.KING;
+    }
+
     @Override
     public String toString() {
         return "K";  // String representation of the King piece
     }
 
-    private boolean canMove(Position position) {
-        ChessPiece p = (ChessPiece) getBoard().piece(position);
-        return p == null || p.getColor() != getColor();  // Checks if the King can move to the specified position
+    private boolean testRookCastling(int square) {
+        ChessPiece p = getChessBoard().piece(square);
+        return p != null && p instanceof Rook && p.getColor() == getColor() && p.getMoveCount() == 0;  // Checks if castling is possible with the Rook
     }
 
-    private boolean testRookCastling(Position position) {
-        ChessPiece p = (ChessPiece) getBoard().piece(position);
-        return p != null && p instanceof Rook && p.getColor() == getColor() && p.getMoveCount() == 0;  // Checks if castling is possible with the Rook
+    private boolean testAttacked(int square) {
+        return getChessBoard().isSquareAttacked(square, (getColor() == Color.WHITE) ? Color.BLACK : Color.WHITE);  // Checks if an opponent piece attacks the square
     }
 
     @Override
-    public boolean[][] possibleMoves() {
-        boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-        Position p = new Position(0, 0);
-
-        // Above
-        p.setValues(position.getRow() - 1, position.getColumn());
-        if (getBoard().positionExists(p) && canMove(p)) {
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        // Below
-        p.setValues(position.getRow() + 1, position.getColumn());
-        if (getBoard().positionExists(p) && canMove(p)) {
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        // Left
-        p.setValues(position.getRow(), position.getColumn() - 1);
-        if (getBoard().positionExists(p) && canMove(p)) {
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        // Right
-        p.setValues(position.getRow(), position.getColumn() + 1);
-        if (getBoard().positionExists(p) && canMove(p)) {
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        // NW
-        p.setValues(position.getRow() - 1, position.getColumn() - 1);
-        if (getBoard().positionExists(p) && canMove(p)) {
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        // NE
-        p.setValues(position.getRow() - 1, position.getColumn() + 1);
-        if (getBoard().positionExists(p) && canMove(p)) {
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        // SW
-        p.setValues(position.getRow() + 1, position.getColumn() - 1);
-        if (getBoard().positionExists(p) && canMove(p)) {
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        // SE
-        p.setValues(position.getRow() + 1, position.getColumn() + 1);
-        if (getBoard().positionExists(p) && canMove(p)) {
-            mat[p.getRow()][p.getColumn()] = true;
-        }
-
-        // Special move: Castling
+    public long possibleMovesMask() {
+        long mask = Attacks.king(getSquare()) & ~getOwnPieces();  // Every adjacent square not taken by an own piece
 
-        if (getMoveCount() == 0 && !chessMatch.getCheck()) {
+        // Special move: Castling, not out of, through or into check, as MoveGenerator.generateCastling allows it
+        int square = getSquare();
+        if (getMoveCount() == 0 && !testAttacked(square)) {
+            long occupied = getChessBoard().getOccupied();
             // King side castling
-            Position posT1 = new Position(position.getRow(), position.getColumn() + 3);
-            if (testRookCastling(posT1)) {
-                Position p1 = new Position(position.getRow(), position.getColumn() + 1);
-                Position p2 = new Position(position.getRow(), position.getColumn() + 2);
-                if (getBoard().piece(p1) == null && getBoard().piece(p2) == null) {
-                    mat[position.getRow()][position.getColumn() + 2] = true;
-                }
+            if (position.getColumn() + 3 < 8 && testRookCastling(square + 3) && (occupied & (3L << (square + 1))) == 0
+                    && !testAttacked(square + 1) && !testAttacked(square + 2)) {
+                mask |= 1L << (square + 2);
             }
             // Queen side castling
-            Position posT2 = new Position(position.getRow(), position.getColumn() - 4);
-            if (testRookCastling(posT2)) {
-                Position p1 = new Position(position.getRow(), position.getColumn() - 1);
-                Position p2 = new Position(position.getRow(), position.getColumn() - 2);
-                Position p3 = new Position(position.getRow(), position.getColumn() - 3);
-                if (getBoard().piece(p1) == null && getBoard().piece(p2) == null && getBoard().piece(p3) == null) {
-                    mat[position.getRow()][position.getColumn() - 2] = true;
-                }
+            if (position.getColumn() - 4 >= 0 && testRookCastling(square - 4) && (occupied & (7L << (square - 3))) == 0
+                    && !testAttacked(square - 1) && !testAttacked(square - 2)) {
+                mask |= 1L << (square - 2);
             }
         }
 
-        return mat;  // Returns the possible moves for the King piece
+        return mask;  // Returns the possible moves for the King piece
     }
 }
@@ -1,10 +1,12 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import chess.Attacks;
+import chess.ChessBoard;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceType;
 
 public class Pawn extends ChessPiece {
 
@@ -15,93 +17,55 @@ public class Pawn extends ChessPiece {
         this.chessMatch = chessMatch;  // Constructor for the Pawn piece
     }
 
+    @Override
+    public PieceType getType() {
+        return PieceType.PAWN;
+    }
+
     @Override
     public String toString() {
         return "P";  // String representation of the Pawn piece
     }
 
     @Override
-    public boolean[][] possibleMoves() {
-        boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-
-        Position p = new Position(0, 0);
-
-        if (getColor() == Color.WHITE) {
-            // Move forward
-            p.setValues(position.getRow() - 1, position.getColumn());
-            if (getBoard().positionExists(p) && !getBoard().thereIsPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
+    public long possibleMovesMask() {
+        long mask = 0L;
+        long occupied = getChessBoard().getOccupied();
+        long opponentPieces = getOpponentPieces();
+        int direction = (getColor() == Color.WHITE) ? -1 : 1;  // White moves up the rows, black moves down
+        int row = position.getRow() + direction;
+        int column = position.getColumn();
+        if (row < 0 || row >= 8) return mask;
+
+        // Move forward
+        long forward = 1L << ChessBoard.square(row, column);
+        if ((occupied & forward) == 0) {
+            mask |= forward;
 
             // Move two squares forward from starting position
-            p.setValues(position.getRow() - 2, position.getColumn());
-            Position p2 = new Position(position.getRow() - 1, position.getColumn());
-            if (getBoard().positionExists(p) && !getBoard().thereIsPiece(p) && getBoard().positionExists(p2) && !getBoard().thereIsPiece(p2) && getMoveCount() == 0) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
-
-            // Capture diagonally left
-            p.setValues(position.getRow() - 1, position.getColumn() - 1);
-            if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
-
-            // Capture diagonally right
-            p.setValues(position.getRow() - 1, position.getColumn() + 1);
-            if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
-
-            // En passant
-            if (position.getRow() == 3) {
-                Position left = new Position(position.getRow(), position.getColumn() - 1);
-                if (getBoard().positionExists(left) && isThereOpponentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVulnerable()) {
-                    mat[left.getRow() - 1][left.getColumn()] = true;
-                }
-                Position right = new Position(position.getRow(), position.getColumn() + 1);
-                if (getBoard().positionExists(right) && isThereOpponentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVulnerable()) {
-                    mat[right.getRow() - 1][right.getColumn()] = true;
+            int row2 = row + direction;
+            if (getMoveCount() == 0 && row2 >= 0 && row2 < 8) {
+                long forward2 = 1L << ChessBoard.square(row2, column);
+                if ((occupied & forward2) == 0) {
+                    mask |= forward2;
                 }
             }
-        } else {
-            // Move forward
-            p.setValues(position.getRow() + 1, position.getColumn());
-            if (getBoard().positionExists(p) && !getBoard().thereIsPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
-
-            // Move two squares forward from starting position
-            p.setValues(position.getRow() + 2, position.getColumn());
-            Position p2 = new Position(position.getRow() + 1, position.getColumn());
-            if (getBoard().positionExists(p) && !getBoard().thereIsPiece(p) && getBoard().positionExists(p2) && !getBoard().thereIsPiece(p2) && getMoveCount() == 0) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
+        }
 
-            // Capture diagonally left
-            p.setValues(position.getRow() + 1, position.getColumn() - 1);
-            if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
-            }
+        // Capture diagonally left and right
+        mask |= Attacks.pawn(getColor(), getSquare()) & opponentPieces;
 
-            // Capture diagonally right
-            p.setValues(position.getRow() + 1, position.getColumn() + 1);
-            if (getBoard().positionExists(p) && isThereOpponentPiece(p)) {
-                mat[p.getRow()][p.getColumn()] = true;
+        // En passant
+        ChessPiece vulnerable = chessMatch.getEnPassantVulnerable();
+        if (vulnerable != null && position.getRow() == ((getColor() == Color.WHITE) ? 3 : 4)) {
+            if (column > 0 && getChessBoard().piece(position.getRow(), column - 1) == vulnerable && vulnerable.getColor() != getColor()) {
+                mask |= 1L << ChessBoard.square(row, column - 1);
             }
-
-            // En passant
-            if (position.getRow() == 4) {
-                Position left = new Position(position.getRow(), position.getColumn() - 1);
-                if (getBoard().positionExists(left) && isThereOpponentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVulnerable()) {
-                    mat[left.getRow() + 1][left.getColumn()] = true;
-                }
-                Position right = new Position(position.getRow(), position.getColumn() + 1);
-                if (getBoard().positionExists(right) && isThereOpponentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVulnerable()) {
-                    mat[right.getRow() + 1][right.getColumn()] = true;
-                }
+            if (column < 7 && getChessBoard().piece(position.getRow(), column + 1) == vulnerable && vulnerable.getColor() != getColor()) {
+                mask |= 1L << ChessBoard.square(row, column + 1);
             }
         }
 
-        return mat;  // Returns the possible moves for the Pawn piece
+        return mask;  // Returns the possible moves for the Pawn piece
     }
 }
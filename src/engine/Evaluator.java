@@ -0,0 +1,30 @@
+package engine;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.PieceSquareTables;
+import chess.PieceType;
+
+// Static evaluation in centipawns, from the point of view of the player to move. Material and piece-square
+// terms are kept up to date by the board as pieces move, so a leaf only has to blend them by game phase.
+// Pawn structure is looked up in a cache keyed on the pawn key, and only worked out again on a miss.
+public class Evaluator {
+    private static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};  // Indexed by PieceType
+    private static final int PAWN_TABLE_ENTRIES = 1 << 14;
+
+    private final PawnTable pawnTable = new PawnTable(PAWN_TABLE_ENTRIES);
+
+    public static int pieceValue(PieceType type) {
+        return PIECE_VALUES[type.ordinal()];
+    }
+
+    public int evaluate(ChessMatch match) {
+        int phase = match.getGamePhase();
+        long pawns = pawnTable.probe(match);
+        int middlegame = match.getMiddlegameScore() + PawnTable.middlegame(pawns);
+        int endgame = match.getEndgameScore() + PawnTable.endgame(pawns);
+        // Tapered: middlegame weights with all pieces on the board, sliding to endgame weights as they come off
+        int score = (middlegame * phase + endgame * (PieceSquareTables.TOTAL_PHASE - phase)) / PieceSquareTables.TOTAL_PHASE;
+        return (match.getCurrentPlayer() == Color.WHITE) ? score : -score;
+    }
+}
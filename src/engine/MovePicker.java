@@ -0,0 +1,144 @@
+package engine;
+
+import chess.ChessMatch;
+import chess.Move;
+import chess.MoveList;
+import chess.PieceType;
+
+// Hands out the moves of a node best-first, in stages: the hash move, captures by MVV-LVA, the killer moves
+// and finally the quiet moves by history score. Each stage is only generated when the previous one is used
+// up, so a cutoff on the hash move or a capture never pays for generating the quiet moves.
+// A picker is reset and reused for every node at its ply, so picking moves allocates nothing.
+class MovePicker {
+    private static final int HASH = 0;
+    private static final int GENERATE_CAPTURES = 1;
+    private static final int CAPTURES = 2;
+    private static final int KILLERS = 3;
+    private static final int GENERATE_QUIETS = 4;
+    private static final int QUIETS = 5;
+    private static final int DONE = 6;
+
+    private final MoveList moves = new MoveList();
+    private int[] scores = new int[256];
+    private ChessMatch position;
+    private int hashMove;
+    private int[] killers;
+    private int[][] history;
+    private boolean capturesOnly;
+    private int stage;
+    private int index;
+    private int killerIndex;
+
+    // killers and history may be null, as in the quiescence search
+    void reset(ChessMatch position, int hashMove, int[] killers, int[][] history, boolean capturesOnly) {
+        this.position = position;
+        this.hashMove = hashMove;
+        this.killers = killers;
+        this.history = history;
+        this.capturesOnly = capturesOnly;
+        moves.clear();
+        stage = HASH;
+        index = 0;
+        killerIndex = 0;
+    }
+
+    // Returns Move.NONE when every move has been handed out
+    int next() {
+        while (true) {
+            switch (stage) {
+                case HASH -> {
+                    stage = GENERATE_CAPTURES;
+                    if (hashMove != Move.NONE && (!capturesOnly || isTactical(hashMove)) && position.isLegal(hashMove)) {
+                        return hashMove;
+                    }
+                }
+                case GENERATE_CAPTURES -> {
+                    position.legalCaptures(moves);
+                    scoreMoves(true);
+                    stage = CAPTURES;
+                }
+                case CAPTURES -> {
+                    int move = pickBest();
+                    if (move == Move.NONE) {
+                        stage = capturesOnly ? DONE : KILLERS;
+                    } else if (move != hashMove) {
+                        return move;
+                    }
+                }
+                case KILLERS -> {
+                    if (killers == null || killerIndex >= killers.length) {
+                        stage = GENERATE_QUIETS;
+                    } else {
+                        int killer = killers[killerIndex++];
+                        // Killers come from sibling nodes, so check they are legal here
+                        if (killer != Move.NONE && killer != hashMove && !isTactical(killer) && position.isLegal(killer)) return killer;
+                    }
+                }
+                case GENERATE_QUIETS -> {
+                    moves.clear();
+                    index = 0;
+                    position.legalQuietMoves(moves);
+                    scoreMoves(false);
+                    stage = QUIETS;
+                }
+                case QUIETS -> {
+                    int move = pickBest();
+                    if (move == Move.NONE) {
+                        stage = DONE;
+                    } else if (!isHashOrKiller(move)) {
+                        return move;
+                    }
+                }
+                default -> {
+                    return Move.NONE;
+                }
+            }
+        }
+    }
+
+    private static boolean isTactical(int move) {
+        return Move.isCapture(move) || Move.isPromotion(move);
+    }
+
+    private boolean isHashOrKiller(int move) {
+        if (move == hashMove) return true;
+        if (killers != null) {
+            for (int killer : killers) {
+                if (killer == move) return true;
+            }
+        }
+        return false;
+    }
+
+    private void scoreMoves(boolean captures) {
+        if (scores.length < moves.size()) scores = new int[moves.size() * 2];
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (captures) {
+                // MVV-LVA: the most valuable victim first, and among those the least valuable attacker
+                PieceType victim = position.getPieceType(Move.target(move));
+                int victimValue = (victim == null) ? 0 : Evaluator.pieceValue(victim);  // Empty for en passant and quiet promotions
+                if (Move.isEnPassant(move)) victimValue = Evaluator.pieceValue(PieceType.PAWN);
+                if (Move.isPromotion(move)) victimValue += Evaluator.pieceValue(Move.promotionPiece(move));
+                scores[i] = victimValue * 8 - position.getPieceType(Move.source(move)).ordinal();
+            } else {
+                scores[i] = (history == null) ? 0 : history[Move.source(move)][Move.target(move)];
+            }
+        }
+    }
+
+    // Selection sort one step at a time: only the moves actually tried get sorted
+    private int pickBest() {
+        if (index >= moves.size()) return Move.NONE;
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (scores[i] > scores[best]) best = i;
+        }
+        int move = moves.get(best);
+        moves.set(best, moves.get(index));
+        scores[best] = scores[index];
+        moves.set(index, move);
+        index++;
+        return move;
+    }
+}
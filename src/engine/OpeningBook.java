@@ -0,0 +1,115 @@
+package engine;
+
+import chess.ChessMatch;
+import chess.ChessMove;
+import chess.Move;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Opening book file, memory-mapped and binary-searched by position key, so a book move costs a few page
+// reads instead of a search. The file, written by OpeningBookBuilder, is little-endian:
+//   header:  magic "CBK1" (4 bytes), reserved (4), entry count (8)
+//   entries: Zobrist key (8), packed move (4), weight (4), sorted by key
+// Reads are absolute gets on the shared mapping, so one book can serve any number of matches at once.
+public class OpeningBook implements Closeable {
+    static final int MAGIC = 0x314B4243;  // "CBK1" read little-endian
+    static final int HEADER_BYTES = 16;
+    static final int ENTRY_BYTES = 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer entries;
+    private final int count;
+
+    public OpeningBook(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("Opening book is bigger than 2 GB: " + path);
+            entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            entries.order(ByteOrder.LITTLE_ENDIAN);
+            if (size < HEADER_BYTES || entries.getInt(0) != MAGIC || HEADER_BYTES + entries.getLong(8) * ENTRY_BYTES != size) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            count = (int) entries.getLong(8);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getEntryCount() {
+        return count;
+    }
+
+    // A book move for the position picked at random in proportion to its weight, or null when out of book
+    public ChessMove pick(ChessMatch match) {
+        return pick(match, ThreadLocalRandom.current());
+    }
+
+    public ChessMove pick(ChessMatch match, Random random) {
+        long key = match.getZobristKey();
+        int first = firstEntry(key);
+        long total = 0;
+        for (int i = first; i < count && key(i) == key; i++) {
+            if (match.isLegal(move(i))) total += weight(i);  // A key collision can't make the book play an illegal move
+        }
+        if (total == 0) return null;
+        long choice = (long) (random.nextDouble() * total);
+        for (int i = first; ; i++) {
+            if (!match.isLegal(move(i))) continue;
+            choice -= weight(i);
+            if (choice < 0) return new ChessMove(move(i));
+        }
+    }
+
+    // The legal book move with the highest weight, or null when out of book
+    public ChessMove best(ChessMatch match) {
+        long key = match.getZobristKey();
+        int best = Move.NONE;
+        long bestWeight = 0;
+        for (int i = firstEntry(key); i < count && key(i) == key; i++) {
+            if (weight(i) > bestWeight && match.isLegal(move(i))) {
+                best = move(i);
+                bestWeight = weight(i);
+            }
+        }
+        return (best == Move.NONE) ? null : new ChessMove(best);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Index of the first entry with the key, or of the first bigger key when there is none
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(key(middle), key) < 0) low = middle + 1;  // Keys are sorted as unsigned
+            else high = middle;
+        }
+        return low;
+    }
+
+    private long key(int entry) {
+        return entries.getLong(HEADER_BYTES + entry * ENTRY_BYTES);
+    }
+
+    private int move(int entry) {
+        return entries.getInt(HEADER_BYTES + entry * ENTRY_BYTES + 8);
+    }
+
+    private long weight(int entry) {
+        return entries.getInt(HEADER_BYTES + entry * ENTRY_BYTES + 12) & 0xFFFFFFFFL;
+    }
+}
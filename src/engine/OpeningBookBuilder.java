@@ -0,0 +1,149 @@
+package engine;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.GameArchive;
+import chess.PgnGame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Builds an OpeningBook file from games. Every move of the first maxPlies plies of a game is weighted by
+// how the game went for the player who made it: 2 for a win, 1 for a draw or an unfinished game and
+// nothing for a loss. Moves are collected in primitive arrays that are sorted and merged whenever they
+// fill up, so repeated openings take no extra room while a large archive is read.
+public class OpeningBookBuilder {
+    private final int maxPlies;
+    private long[] keys = new long[1 << 16];
+    private int[] moves = new int[1 << 16];
+    private int[] weights = new int[1 << 16];
+    private int size;
+
+    public OpeningBookBuilder(int maxPlies) {
+        if (maxPlies < 1) throw new IllegalArgumentException("An opening book needs at least 1 ply per game");
+        this.maxPlies = maxPlies;
+    }
+
+    public void add(PgnGame game) {
+        ChessMatch match = game.startPosition();
+        int plies = Math.min(maxPlies, game.getMoveCount());
+        for (int ply = 0; ply < plies; ply++) {
+            int move = game.getMove(ply);
+            int weight = weight(game.getResult(), match.getCurrentPlayer());
+            if (weight > 0) append(match.getZobristKey(), move, weight);
+            match.makeMove(move);
+        }
+    }
+
+    public void addAll(GameArchive archive) {
+        for (long i = 0; i < archive.getGameCount(); i++) {
+            add(archive.read(i));
+        }
+    }
+
+    public void write(Path path) throws IOException {
+        merge();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(OpeningBook.MAGIC).putInt(0).putLong(size);
+            for (int i = 0; i < size; i++) {
+                if (buffer.remaining() < OpeningBook.ENTRY_BYTES) flush(buffer, channel);
+                buffer.putLong(keys[i]).putInt(moves[i]).putInt(weights[i]);
+            }
+            flush(buffer, channel);
+        }
+    }
+
+    private static int weight(String result, Color mover) {
+        return switch (result) {
+            case "1-0" -> (mover == Color.WHITE) ? 2 : 0;
+            case "0-1" -> (mover == Color.BLACK) ? 2 : 0;
+            default -> 1;
+        };
+    }
+
+    private void append(long key, int move, int weight) {
+        if (size == keys.length) {
+            merge();
+            if (size > keys.length * 3 / 4) {  // Mostly distinct moves: make room instead of merging again soon
+                keys = Arrays.copyOf(keys, keys.length * 2);
+                moves = Arrays.copyOf(moves, moves.length * 2);
+                weights = Arrays.copyOf(weights, weights.length * 2);
+            }
+        }
+        keys[size] = key;
+        moves[size] = move;
+        weights[size] = weight;
+        size++;
+    }
+
+    // Sorts by key, as the book's binary search expects, and adds up the weights of the same move
+    private void merge() {
+        sort(0, size - 1);
+        int merged = 0;
+        for (int i = 0; i < size; i++) {
+            if (merged > 0 && keys[merged - 1] == keys[i] && moves[merged - 1] == moves[i]) {
+                weights[merged - 1] = (int) Math.min(0xFFFFFFFFL, (weights[merged - 1] & 0xFFFFFFFFL) + weights[i]);
+            } else {
+                keys[merged] = keys[i];
+                moves[merged] = moves[i];
+                weights[merged] = weights[i];
+                merged++;
+            }
+        }
+        size = merged;
+    }
+
+    // Quicksort of the three arrays together, by unsigned key and then move
+    private void sort(int low, int high) {
+        while (low < high) {
+            int pivot = (low + high) >>> 1;
+            long pivotKey = keys[pivot];
+            int pivotMove = moves[pivot];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(keys[i], moves[i], pivotKey, pivotMove) < 0) i++;
+                while (compare(keys[j], moves[j], pivotKey, pivotMove) > 0) j--;
+                if (i <= j) swap(i++, j--);
+            }
+            if (j - low < high - i) {  // Recurses into the smaller side, so the stack stays shallow
+                sort(low, j);
+                low = i;
+            } else {
+                sort(i, high);
+                high = j;
+            }
+        }
+    }
+
+    private static int compare(long key, int move, long otherKey, int otherMove) {
+        int c = Long.compareUnsigned(key, otherKey);
+        return (c != 0) ? c : Integer.compare(move, otherMove);
+    }
+
+    private void swap(int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+        int weight = weights[i];
+        weights[i] = weights[j];
+        weights[j] = weight;
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
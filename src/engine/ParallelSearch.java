@@ -0,0 +1,80 @@
+package engine;
+
+import chess.ChessMatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Lazy SMP: helper threads search the same root position as the main thread, each on its own copy of the
+// match, and share only the transposition table. Helpers start at staggered depths, so they fill the table
+// with results the main thread reaches later. The answer always comes from the main thread, which keeps
+// fixed-depth runs close to the single-threaded result and easy to benchmark.
+public class ParallelSearch {
+    private final TranspositionTable table;
+    private final int threads;
+    private final ExecutorService helpers;
+    private Tablebases tablebases;
+
+    public ParallelSearch(TranspositionTable table, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Parallel search needs at least 1 thread");
+        }
+        this.table = table;
+        this.threads = threads;
+        helpers = Executors.newFixedThreadPool(Math.max(1, threads - 1), runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;  // Probed by every search thread
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    // Same limits as Search.search; the calling thread runs the main search
+    public SearchResult search(ChessMatch match, int maxDepth, long timeMillis, long maxNodes) {
+        table.newSearch();
+        List<Search> helperSearches = new ArrayList<>();
+        List<Future<SearchResult>> futures = new ArrayList<>();
+        for (int i = 1; i < threads; i++) {
+            Search helper = new Search(table);
+            helper.setTablebases(tablebases);
+            ChessMatch copy = new ChessMatch(match);  // Copied here, so no helper ever reads the caller's match
+            int firstDepth = 1 + (i % 2);  // Odd helpers run one ply ahead of the main thread
+            helperSearches.add(helper);
+            futures.add(helpers.submit(() -> helper.search(copy, firstDepth, maxDepth, 0, 0)));
+        }
+
+        Search main = new Search(table);
+        main.setTablebases(tablebases);
+        SearchResult result = main.search(match, 1, maxDepth, timeMillis, maxNodes);
+
+        long nodes = result.getNodes();
+        for (Search helper : helperSearches) {
+            helper.stop();  // The main thread is done, the helpers' work is only useful through the table
+        }
+        for (Future<SearchResult> future : futures) {
+            try {
+                nodes += future.get().getNodes();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search helper failed", e.getCause());
+            }
+        }
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), nodes);
+    }
+
+    public void shutdown() {
+        helpers.shutdownNow();
+    }
+}
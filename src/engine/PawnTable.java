@@ -0,0 +1,123 @@
+package engine;
+
+import chess.Attacks;
+import chess.ChessMatch;
+import chess.Color;
+import chess.PieceType;
+
+// Cache of pawn structure scores keyed on the pawn key. Passed, isolated, doubled and backward pawns take
+// a pass over every pawn to work out, but the pawns rarely move compared to the other pieces, so nearly
+// every lookup is a hit. Each entry is replaced on a collision; a table belongs to one Evaluator and thread.
+class PawnTable {
+    private static final int DOUBLED_MG = -10;
+    private static final int DOUBLED_EG = -20;
+    private static final int ISOLATED_MG = -10;
+    private static final int ISOLATED_EG = -15;
+    private static final int BACKWARD_MG = -8;
+    private static final int BACKWARD_EG = -10;
+    private static final int[] PASSED_MG = {0, 5, 10, 15, 25, 40, 60, 0};  // Indexed by rows advanced from the start
+    private static final int[] PASSED_EG = {0, 10, 20, 35, 60, 100, 150, 0};
+
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    private static final long[][] FRONT_SPANS = new long[2][64];  // Squares ahead of a pawn on its own and adjacent files
+    private static final long[][] SUPPORT_SPANS = new long[2][64];  // Squares level with or behind a pawn on the adjacent files
+
+    static {
+        for (int file = 0; file < 8; file++) {
+            FILES[file] = 0x0101010101010101L << file;
+        }
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = ((file > 0) ? FILES[file - 1] : 0L) | ((file < 7) ? FILES[file + 1] : 0L);
+        }
+        for (int square = 0; square < 64; square++) {
+            int row = square >>> 3;
+            long files = FILES[square & 7] | ADJACENT_FILES[square & 7];
+            long rowsAbove = (1L << (row * 8)) - 1;  // Rows closer to rank 8, where white pawns are heading
+            long rowsBelow = (row == 7) ? 0L : -1L << ((row + 1) * 8);
+            FRONT_SPANS[Color.WHITE.ordinal()][square] = files & rowsAbove;
+            FRONT_SPANS[Color.BLACK.ordinal()][square] = files & rowsBelow;
+            SUPPORT_SPANS[Color.WHITE.ordinal()][square] = ADJACENT_FILES[square & 7] & ~rowsAbove;
+            SUPPORT_SPANS[Color.BLACK.ordinal()][square] = ADJACENT_FILES[square & 7] & ~rowsBelow;
+        }
+    }
+
+    private final long[] keys;
+    private final long[] scores;
+    private final int mask;
+
+    PawnTable(int entries) {
+        int size = Integer.highestOneBit(Math.max(entries, 1));  // Power of two, so an entry is picked with a mask
+        keys = new long[size];
+        scores = new long[size];
+        mask = size - 1;
+    }
+
+    // Packed middlegame and endgame pawn scores for white minus black; a board without pawns has key 0 and
+    // scores 0, which is exactly what an empty entry holds
+    long probe(ChessMatch match) {
+        long key = match.getPawnKey();
+        int index = (int) key & mask;
+        if (keys[index] != key) {
+            keys[index] = key;
+            scores[index] = evaluate(match);
+        }
+        return scores[index];
+    }
+
+    static int middlegame(long scores) {
+        return (int) (scores >> 32);
+    }
+
+    static int endgame(long scores) {
+        return (int) scores;
+    }
+
+    private static long evaluate(ChessMatch match) {
+        long white = match.getPieces(Color.WHITE, PieceType.PAWN);
+        long black = match.getPieces(Color.BLACK, PieceType.PAWN);
+        long whiteScores = evaluate(Color.WHITE, white, black);
+        long blackScores = evaluate(Color.BLACK, black, white);
+        return pack(middlegame(whiteScores) - middlegame(blackScores), endgame(whiteScores) - endgame(blackScores));
+    }
+
+    private static long evaluate(Color us, long own, long opponent) {
+        Color them = (us == Color.WHITE) ? Color.BLACK : Color.WHITE;
+        int forward = (us == Color.WHITE) ? -8 : 8;
+        int middlegame = 0;
+        int endgame = 0;
+        for (int file = 0; file < 8; file++) {
+            int extra = Long.bitCount(own & FILES[file]) - 1;
+            if (extra > 0) {
+                middlegame += extra * DOUBLED_MG;
+                endgame += extra * DOUBLED_EG;
+            }
+        }
+        long pawns = own;
+        while (pawns != 0) {
+            int square = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            int file = square & 7;
+            long frontSpan = FRONT_SPANS[us.ordinal()][square];
+            if ((opponent & frontSpan) == 0 && (own & frontSpan & FILES[file]) == 0) {
+                int advanced = (us == Color.WHITE) ? 6 - (square >>> 3) : (square >>> 3) - 1;
+                middlegame += PASSED_MG[advanced];
+                endgame += PASSED_EG[advanced];
+            }
+            if ((own & ADJACENT_FILES[file]) == 0) {
+                middlegame += ISOLATED_MG;
+                endgame += ISOLATED_EG;
+            } else if ((own & SUPPORT_SPANS[us.ordinal()][square]) == 0
+                    && (Attacks.pawn(us, square + forward) & opponent) != 0) {
+                // No neighbour can come up to support it, and advancing walks into an enemy pawn's capture
+                middlegame += BACKWARD_MG;
+                endgame += BACKWARD_EG;
+            }
+        }
+        return pack(middlegame, endgame);
+    }
+
+    private static long pack(int middlegame, int endgame) {
+        return ((long) middlegame << 32) | (endgame & 0xFFFFFFFFL);
+    }
+}
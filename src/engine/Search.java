@@ -0,0 +1,224 @@
+package engine;
+
+import chess.ChessMatch;
+import chess.ChessMove;
+import chess.Move;
+import chess.MoveList;
+
+import java.util.Arrays;
+
+// Iterative-deepening negamax with alpha-beta pruning and principal variation search.
+// Each iteration starts from the best move of the previous one (kept in the transposition table),
+// and when the time or node budget runs out the result of the last finished iteration is returned.
+public class Search {
+    public static final int INFINITY = 32000;
+    public static final int MATE = 31000;  // Mate in n plies scores MATE - n
+    private static final int MAX_PLY = 128;
+
+    private final TranspositionTable table;
+    private final Evaluator evaluator = new Evaluator();
+    private final long[] pathKeys = new long[MAX_PLY + 1];  // Position keys along the current line, for repetitions
+    private final int[][] killers = new int[MAX_PLY + 1][2];  // Quiet moves that caused a cutoff, per ply
+    private final int[][][] history = new int[2][64][64];  // Cutoff counts per color, source and target square
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY + 1];  // One per ply, reused by every node there
+    private final MoveList rootMoves = new MoveList();
+    private Tablebases tablebases;  // Null when there are none to probe
+
+    private long nodes;
+    private long maxNodes;
+    private long deadline;
+    private boolean stopped;
+    private volatile boolean stopRequested;  // Set from another thread to end the search early
+    private int rootBest;
+
+    public Search(TranspositionTable table) {
+        this.table = table;
+        for (int ply = 0; ply <= MAX_PLY; ply++) {
+            pickers[ply] = new MovePicker();
+        }
+    }
+
+    // A time limit or node limit of 0 means no limit of that kind
+    public SearchResult search(ChessMatch match, int maxDepth, long timeMillis, long maxNodes) {
+        stopRequested = false;  // A stop only ends the search it was sent to, so the instance can be reused
+        table.newSearch();
+        return search(match, 1, maxDepth, timeMillis, maxNodes);
+    }
+
+    public void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    public void stop() {
+        stopRequested = true;
+    }
+
+    // Iterative deepening from firstDepth, without starting a new table generation; used by the helper threads.
+    // A stop sent before it starts is kept, so a helper started after the main search ended returns at once
+    SearchResult search(ChessMatch match, int firstDepth, int maxDepth, long timeMillis, long maxNodes) {
+        ChessMatch position = new ChessMatch(match);  // Searches a copy, so the caller's match is never touched
+        nodes = 0;
+        for (int[] slots : killers) {
+            Arrays.fill(slots, 0);
+        }
+        for (int[][] byColor : history) {
+            for (int[] bySource : byColor) {
+                Arrays.fill(bySource, 0);
+            }
+        }
+        stopped = stopRequested;
+        this.maxNodes = (maxNodes > 0) ? maxNodes : Long.MAX_VALUE;
+        deadline = (timeMillis > 0) ? System.nanoTime() + timeMillis * 1_000_000L : Long.MAX_VALUE;
+
+        rootMoves.clear();
+        position.legalMoves(rootMoves);
+        if (rootMoves.isEmpty()) {
+            return new SearchResult(null, position.getCheck() ? -MATE : 0, 0, 0);  // Checkmate or stalemate
+        }
+
+        int bestMove = rootMoves.get(0);
+        int bestScore = 0;
+        int completedDepth = 0;
+        for (int depth = firstDepth; depth <= Math.min(maxDepth, MAX_PLY); depth++) {
+            int score = negamax(position, depth, -INFINITY, INFINITY, 0);
+            if (stopped) break;  // An unfinished iteration is thrown away
+            bestMove = rootBest;
+            bestScore = score;
+            completedDepth = depth;
+            if (Math.abs(score) >= MATE - MAX_PLY) break;  // A forced mate was found, searching deeper won't change it
+        }
+        return new SearchResult(new ChessMove(bestMove), bestScore, completedDepth, nodes);
+    }
+
+    private int negamax(ChessMatch position, int depth, int alpha, int beta, int ply) {
+        if (depth <= 0) return quiescence(position, alpha, beta, ply);
+        if (countNode()) return 0;
+
+        long key = position.getZobristKey();
+        pathKeys[ply] = key;
+        if (ply > 0) {
+            for (int i = ply - 2; i >= 0; i -= 2) {
+                if (pathKeys[i] == key) return 0;  // Repeating a position on the current line is a draw
+            }
+        }
+
+        if (ply > 0 && tablebases != null) {
+            int score = tablebases.probe(position);
+            if (score != Tablebases.NOT_FOUND) return (score > 0) ? score - ply : (score < 0) ? score + ply : 0;  // Mates counted from the root
+        }
+
+        int originalAlpha = alpha;
+        int hashMove = 0;
+        long entry = table.probe(key);
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT) return score;
+                if (bound == TranspositionTable.BOUND_LOWER && score >= beta) return score;
+                if (bound == TranspositionTable.BOUND_UPPER && score <= alpha) return score;
+            }
+        }
+        if (ply >= MAX_PLY) return evaluator.evaluate(position);
+
+        int side = position.getCurrentPlayer().ordinal();
+        MovePicker picker = pickers[ply];
+        picker.reset(position, hashMove, killers[ply], history[side], false);
+        int bestScore = -INFINITY;
+        int bestMove = Move.NONE;
+        int searched = 0;
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            position.makeMove(move);
+            int score;
+            if (searched == 0) {
+                score = -negamax(position, depth - 1, -beta, -alpha, ply + 1);
+            } else {
+                score = -negamax(position, depth - 1, -alpha - 1, -alpha, ply + 1);  // Null window: prove the move is worse
+                if (score > alpha && score < beta) {
+                    score = -negamax(position, depth - 1, -beta, -alpha, ply + 1);  // It wasn't, search it properly
+                }
+            }
+            position.unmakeMove();
+            searched++;
+            if (stopped) return 0;
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (ply == 0) rootBest = move;
+            }
+            if (score > alpha) alpha = score;
+            if (alpha >= beta) {
+                if (!Move.isCapture(move) && !Move.isPromotion(move)) {
+                    rememberQuietCutoff(bestMove, side, depth, ply);
+                }
+                break;  // Beta cutoff
+            }
+        }
+        if (searched == 0) return position.getCheck() ? -MATE + ply : 0;  // Checkmate or stalemate
+
+        int bound = (bestScore <= originalAlpha) ? TranspositionTable.BOUND_UPPER
+                : (bestScore >= beta) ? TranspositionTable.BOUND_LOWER : TranspositionTable.BOUND_EXACT;
+        table.store(key, bestMove, toTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    // Searches captures and promotions only, so the static evaluation is never taken in the middle of an exchange
+    private int quiescence(ChessMatch position, int alpha, int beta, int ply) {
+        if (countNode()) return 0;
+        boolean inCheck = position.getCheck();
+        if (ply >= MAX_PLY) return evaluator.evaluate(position);
+
+        int bestScore = -INFINITY;
+        if (!inCheck) {
+            bestScore = evaluator.evaluate(position);  // Stand pat: the player may decline every capture
+            if (bestScore >= beta) return bestScore;
+            if (bestScore > alpha) alpha = bestScore;
+        }
+        MovePicker picker = pickers[ply];
+        picker.reset(position, Move.NONE, null, null, !inCheck);  // All evasions are tried when in check
+        int searched = 0;
+        for (int move = picker.next(); move != Move.NONE; move = picker.next()) {
+            position.makeMove(move);
+            int score = -quiescence(position, -beta, -alpha, ply + 1);
+            position.unmakeMove();
+            searched++;
+            if (stopped) return 0;
+            if (score > bestScore) bestScore = score;
+            if (score > alpha) alpha = score;
+            if (alpha >= beta) break;
+        }
+        if (inCheck && searched == 0) return -MATE + ply;  // Checkmate
+        return bestScore;
+    }
+
+    private void rememberQuietCutoff(int move, int side, int depth, int ply) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        history[side][Move.source(move)][Move.target(move)] += depth * depth;  // Deep cutoffs count for more
+    }
+
+    private boolean countNode() {
+        nodes++;
+        if ((nodes & 1023) == 0 && (stopRequested || nodes >= maxNodes || System.nanoTime() >= deadline)) {
+            stopped = true;  // Checked every 1024 nodes to keep the clock out of the hot path
+        }
+        return stopped;
+    }
+
+    // Mate scores are stored relative to the node, so they stay right when found again at another ply
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score + ply;
+        if (score <= -MATE + MAX_PLY) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score - ply;
+        if (score <= -MATE + MAX_PLY) return score + ply;
+        return score;
+    }
+}
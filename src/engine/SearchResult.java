@@ -0,0 +1,38 @@
+package engine;
+
+import chess.ChessMove;
+
+public class SearchResult {
+    private final ChessMove bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+
+    public SearchResult(ChessMove bestMove, int score, int depth, long nodes) {
+        this.bestMove = bestMove;
+        this.score = score;  // Centipawns from the point of view of the player to move
+        this.depth = depth;  // Deepest iteration that finished
+        this.nodes = nodes;
+    }
+
+    public ChessMove getBestMove() {
+        return bestMove;  // Null when the player to move has no legal move
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public String toString() {
+        return "bestmove " + bestMove + " score " + score + " depth " + depth + " nodes " + nodes;
+    }
+}
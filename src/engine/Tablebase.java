@@ -0,0 +1,130 @@
+package engine;
+
+import chess.Color;
+import chess.PieceType;
+
+// Distance to mate of every position with one set of pieces, for either side to move. A position is a
+// slot per piece: the white king, the black king, then the other pieces in the order of the material name,
+// so "KRKP" is white king, black king, white rook, black pawn. Every position has its own slot in the index,
+// side to move * king squares * 64^(pieces - 1), after a board symmetry has moved the white king into a
+// fixed region: the a1-d1-d4 triangle without pawns, files a-d with them. The few positions that are
+// unreachable under that symmetry, or illegal, leave their slots unused.
+// Each position is one byte: 0 for a draw, otherwise plies to mate + 1. The side to move wins when the
+// distance is odd and loses when it is even, so the byte holds both the win/draw/loss and the distance.
+public class Tablebase {
+    static final int DRAW = 0;
+    static final int MAX_DISTANCE = 254;  // Plies to mate that still fit in a byte
+
+    private static final int[] TRIANGLE = new int[64];  // White king square to king index, -1 outside the region
+    private static final int[] HALF = new int[64];
+    private static final int[] TRIANGLE_SQUARES = new int[10];
+    private static final int[] HALF_SQUARES = new int[32];
+
+    static {
+        int triangle = 0;
+        int half = 0;
+        for (int square = 0; square < 64; square++) {
+            int rank = 7 - (square >>> 3);
+            int file = square & 7;
+            TRIANGLE[square] = -1;
+            HALF[square] = -1;
+            if (file < 4) {
+                HALF_SQUARES[half] = square;
+                HALF[square] = half++;
+            }
+            if (file < 4 && rank <= file) {
+                TRIANGLE_SQUARES[triangle] = square;
+                TRIANGLE[square] = triangle++;
+            }
+        }
+    }
+
+    private final String material;
+    private final PieceType[] types;
+    private final Color[] colors;
+    private final boolean pawns;
+    private final int kingSquares;
+    private final int size;
+    final byte[] values;
+
+    Tablebase(String material, PieceType[] types, Color[] colors) {
+        this.material = material;
+        this.types = types;
+        this.colors = colors;
+        boolean anyPawn = false;
+        for (PieceType type : types) {
+            anyPawn |= type == PieceType.PAWN;
+        }
+        pawns = anyPawn;
+        kingSquares = pawns ? HALF_SQUARES.length : TRIANGLE_SQUARES.length;  // Pawns only allow the left-right mirror
+        size = 2 * kingSquares << (6 * (types.length - 1));
+        values = new byte[size];
+    }
+
+    public String getMaterial() {
+        return material;
+    }
+
+    public int getPieceCount() {
+        return types.length;
+    }
+
+    public int getPositionCount() {
+        return size;
+    }
+
+    PieceType type(int slot) {
+        return types[slot];
+    }
+
+    Color color(int slot) {
+        return colors[slot];
+    }
+
+    // Plies to mate + 1, or DRAW, of the position with the pieces on the given squares in slot order
+    int value(int[] squares, Color sideToMove) {
+        return values[index(squares, sideToMove)] & 0xFF;
+    }
+
+    // Index of the position after the symmetry that puts it in its canonical orientation
+    int index(int[] squares, Color sideToMove) {
+        int flip = ((squares[0] & 7) > 3) ? 7 : 0;  // Mirror files so the white king is on files a-d
+        boolean transpose = false;
+        if (!pawns) {
+            if ((squares[0] >>> 3) < 4) flip |= 56;  // and ranks so it is on ranks 1-4
+            int king = squares[0] ^ flip;
+            int above = (7 - (king >>> 3)) - (king & 7);
+            // Mirror in the a1-h8 diagonal if the king is above it; on it, the first piece off it decides
+            for (int slot = 1; above == 0 && slot < squares.length; slot++) {
+                int square = squares[slot] ^ flip;
+                above = (7 - (square >>> 3)) - (square & 7);
+            }
+            transpose = above > 0;
+        }
+        int index = sideToMove.ordinal() * kingSquares + (pawns ? HALF : TRIANGLE)[orient(squares[0], flip, transpose)];
+        for (int slot = 1; slot < squares.length; slot++) {
+            index = (index << 6) | orient(squares[slot], flip, transpose);
+        }
+        return index;
+    }
+
+    // Fills squares from an index and returns the side to move, as an ordinal of Color
+    int decode(int index, int[] squares) {
+        for (int slot = squares.length - 1; slot > 0; slot--) {
+            squares[slot] = index & 63;
+            index >>>= 6;
+        }
+        squares[0] = (pawns ? HALF_SQUARES : TRIANGLE_SQUARES)[index % kingSquares];
+        return index / kingSquares;
+    }
+
+    private static int orient(int square, int flip, boolean transpose) {
+        square ^= flip;
+        return transpose ? ((7 - (square & 7)) << 3) | (7 - (square >>> 3)) : square;
+    }
+
+    @Override
+    public String toString() {
+        return material + " (" + size + " positions)";
+    }
+}
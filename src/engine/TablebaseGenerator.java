@@ -0,0 +1,303 @@
+package engine;
+
+import chess.Attacks;
+import chess.Color;
+import chess.PieceType;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// Fills a Tablebase by retrograde analysis. A first pass looks at every position once: mates, stalemates,
+// and the captures and promotions, whose results are read from the smaller tables generated before this one.
+// Then positions are resolved one distance at a time, working backwards: from every position lost in n plies
+// the moves are taken back, and each position found is won in n + 1; from every position won in n, each
+// position found has one move fewer left that doesn't lose, and is lost once it has none left.
+// Both passes split the index into chunks run on the worker threads; each distance is finished before the
+// next one starts, so threads only ever race on the move counters, which are updated atomically.
+final class TablebaseGenerator {
+    private static final VarHandle COUNTERS = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final int ILLEGAL = 0xFF;  // Counter of a slot that holds no legal position
+    private static final int CHUNK = 1 << 16;
+    private static final Color[] COLORS = Color.values();
+    private static final PieceType[] PROMOTIONS = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+    private static final PieceType[] NO_PROMOTION = {null};
+
+    private final Tablebase table;
+    private final Tablebases tablebases;
+    private final ExecutorService workers;
+    private final int pieces;
+    private final byte[] values;
+    private final byte[] counters;  // Moves of the position not yet known to lose, distinct positions counted once
+    private final byte[] conversions;  // Plies to mate through the best capture or promotion: odd wins, even loses
+
+    TablebaseGenerator(Tablebase table, Tablebases tablebases, ExecutorService workers) {
+        this.table = table;
+        this.tablebases = tablebases;
+        this.workers = workers;
+        pieces = table.getPieceCount();
+        values = table.values;
+        counters = new byte[table.getPositionCount()];
+        conversions = new byte[table.getPositionCount()];
+    }
+
+    void generate() {
+        int deepest = forEachChunk(this::initialize);
+        for (int distance = 0; distance <= deepest; distance++) {
+            int level = distance;
+            deepest = Math.max(deepest, forEachChunk((from, to) -> propagate(level, from, to)));
+        }
+    }
+
+    private interface ChunkTask {
+        int run(int from, int to);  // Returns the deepest distance it assigned
+    }
+
+    private int forEachChunk(ChunkTask task) {
+        List<Callable<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.length; from += CHUNK) {
+            int start = from;
+            chunks.add(() -> task.run(start, Math.min(start + CHUNK, values.length)));
+        }
+        int deepest = 0;
+        try {
+            for (Future<Integer> future : workers.invokeAll(chunks)) {
+                deepest = Math.max(deepest, future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tablebase generation was interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tablebase generation failed for " + table.getMaterial(), e.getCause());
+        }
+        return deepest;
+    }
+
+    private int initialize(int from, int to) {
+        int[] squares = new int[pieces];
+        int[] child = new int[pieces];
+        int[] seen = new int[256];
+        int deepest = 0;
+        for (int index = from; index < to; index++) {
+            Color side = COLORS[table.decode(index, squares)];
+            if (!isLegal(squares, side) || table.index(squares, side) != index) {
+                counters[index] = (byte) ILLEGAL;  // Illegal, or the same position as a canonical slot elsewhere
+                continue;
+            }
+            Color them = opponent(side);
+            long occupied = occupancy(squares, null);
+            long own = occupancy(squares, side);
+            int king = squares[kingSlot(side)];
+            int moves = 0;
+            int distinct = 0;
+            int exits = 0;  // Captures and promotions that don't lose
+            int win = 0;
+            int loss = 0;
+            for (int slot = 0; slot < pieces; slot++) {
+                if (table.color(slot) != side) continue;
+                PieceType type = table.type(slot);
+                long targets = targets(type, side, squares[slot], occupied, own);
+                while (targets != 0) {
+                    int target = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    int captured = slotOn(squares, target);
+                    System.arraycopy(squares, 0, child, 0, pieces);
+                    child[slot] = target;
+                    long after = (occupied ^ (1L << squares[slot])) | (1L << target);
+                    if (attacked(child, (type == PieceType.KING) ? target : king, them, after, captured)) continue;
+                    moves++;
+                    boolean promotes = type == PieceType.PAWN && (target >>> 3) == ((side == Color.WHITE) ? 0 : 7);
+                    if (captured < 0 && !promotes) {
+                        int next = table.index(child, them);
+                        if (!contains(seen, distinct, next)) seen[distinct++] = next;
+                        continue;
+                    }
+                    for (PieceType promotion : promotes ? PROMOTIONS : NO_PROMOTION) {
+                        int value = convert(child, captured, slot, promotion, them);
+                        int plies = value - 1;
+                        if (value != Tablebase.DRAW && (plies & 1) != 0) {
+                            loss = Math.max(loss, plies + 1);  // The opponent wins after it
+                        } else {
+                            exits++;
+                            if (value != Tablebase.DRAW) win = (win == 0) ? plies + 1 : Math.min(win, plies + 1);
+                        }
+                    }
+                }
+            }
+            int open = distinct + exits;
+            if (open >= ILLEGAL) throw new IllegalStateException("Too many moves in a position of " + table.getMaterial());
+            counters[index] = (byte) open;
+            if (moves == 0) {
+                if (attacked(squares, king, them, occupied, -1)) set(index, 0);  // Mated; a stalemate stays a draw
+            } else if (open == 0) {
+                set(index, loss);  // Every move is a capture or promotion that loses
+                deepest = Math.max(deepest, loss);
+            } else {
+                conversions[index] = (byte) ((win != 0) ? win : loss);
+                deepest = Math.max(deepest, win);
+            }
+        }
+        return deepest;
+    }
+
+    private int propagate(int level, int from, int to) {
+        int[] squares = new int[pieces];
+        int[] parent = new int[pieces];
+        int[] seen = new int[256];
+        boolean lost = (level & 1) == 0;  // Positions at an even distance are lost for the side to move
+        int deepest = 0;
+        for (int index = from; index < to; index++) {
+            int value = values[index] & 0xFF;
+            if (value == Tablebase.DRAW && !lost && (conversions[index] & 0xFF) == level) {
+                set(index, level);  // Winning capture or promotion, and no faster win was found without one
+            } else if (value != level + 1) {
+                continue;
+            }
+            Color side = COLORS[table.decode(index, squares)];
+            Color mover = opponent(side);
+            long occupied = occupancy(squares, null);
+            int count = 0;
+            for (int slot = 0; slot < pieces; slot++) {
+                if (table.color(slot) != mover) continue;
+                long origins = origins(table.type(slot), mover, squares[slot], occupied);
+                while (origins != 0) {
+                    int origin = Long.numberOfTrailingZeros(origins);
+                    origins &= origins - 1;
+                    System.arraycopy(squares, 0, parent, 0, pieces);
+                    parent[slot] = origin;
+                    long before = occupied ^ (1L << squares[slot]) ^ (1L << origin);
+                    if (attacked(parent, parent[kingSlot(side)], mover, before, -1)) continue;  // Not a legal position
+                    int previous = table.index(parent, mover);
+                    if (contains(seen, count, previous)) continue;
+                    seen[count++] = previous;
+                    if (values[previous] != Tablebase.DRAW) continue;
+                    if (lost) {
+                        set(previous, level + 1);
+                        deepest = level + 1;
+                    } else if (((byte) COUNTERS.getAndAdd(counters, previous, (byte) -1) & 0xFF) == 1) {
+                        int distance = Math.max(level + 1, conversions[previous] & 0xFF);  // Its last move that didn't lose
+                        set(previous, distance);
+                        deepest = Math.max(deepest, distance);
+                    }
+                }
+            }
+        }
+        return deepest;
+    }
+
+    private void set(int index, int plies) {
+        if (plies > Tablebase.MAX_DISTANCE) {
+            throw new IllegalStateException("Mate in " + plies + " plies doesn't fit in a tablebase entry of " + table.getMaterial());
+        }
+        values[index] = (byte) (plies + 1);
+    }
+
+    // Value of a capture or promotion, from the smaller table it leads to
+    private int convert(int[] child, int captured, int slot, PieceType promotion, Color sideToMove) {
+        int count = (captured < 0) ? pieces : pieces - 1;
+        PieceType[] types = new PieceType[count];
+        Color[] colors = new Color[count];
+        int[] squares = new int[count];
+        int n = 0;
+        for (int i = 0; i < pieces; i++) {
+            if (i == captured) continue;
+            types[n] = (i == slot && promotion != null) ? promotion : table.type(i);
+            colors[n] = table.color(i);
+            squares[n++] = child[i];
+        }
+        return tablebases.lookup(types, colors, squares, sideToMove);
+    }
+
+    private boolean isLegal(int[] squares, Color side) {
+        long occupied = occupancy(squares, null);
+        if (Long.bitCount(occupied) != pieces) return false;  // Two pieces on one square
+        for (int slot = 0; slot < pieces; slot++) {
+            int row = squares[slot] >>> 3;
+            if (table.type(slot) == PieceType.PAWN && (row == 0 || row == 7)) return false;
+        }
+        return !attacked(squares, squares[kingSlot(opponent(side))], side, occupied, -1);  // The side not to move can't be in check
+    }
+
+    private long occupancy(int[] squares, Color color) {
+        long occupied = 0L;
+        for (int slot = 0; slot < pieces; slot++) {
+            if (color == null || table.color(slot) == color) occupied |= 1L << squares[slot];
+        }
+        return occupied;
+    }
+
+    private boolean attacked(int[] squares, int target, Color by, long occupied, int skip) {
+        for (int slot = 0; slot < pieces; slot++) {
+            if (slot == skip || table.color(slot) != by) continue;
+            if ((attacks(table.type(slot), by, squares[slot], occupied) & (1L << target)) != 0) return true;
+        }
+        return false;
+    }
+
+    private int slotOn(int[] squares, int square) {
+        for (int slot = 0; slot < pieces; slot++) {
+            if (squares[slot] == square) return slot;
+        }
+        return -1;
+    }
+
+    private static long attacks(PieceType type, Color color, int square, long occupied) {
+        return switch (type) {
+            case PAWN -> Attacks.pawn(color, square);
+            case KNIGHT -> Attacks.knight(square);
+            case BISHOP -> Attacks.bishop(square, occupied);
+            case ROOK -> Attacks.rook(square, occupied);
+            case QUEEN -> Attacks.queen(square, occupied);
+            case KING -> Attacks.king(square);
+        };
+    }
+
+    private static long targets(PieceType type, Color side, int square, long occupied, long own) {
+        if (type != PieceType.PAWN) return attacks(type, side, square, occupied) & ~own;
+        long targets = Attacks.pawn(side, square) & occupied & ~own;
+        int forward = (side == Color.WHITE) ? -8 : 8;
+        int oneStep = square + forward;
+        if ((occupied & (1L << oneStep)) == 0) {
+            targets |= 1L << oneStep;
+            int twoSteps = oneStep + forward;
+            if ((square >>> 3) == ((side == Color.WHITE) ? 6 : 1) && (occupied & (1L << twoSteps)) == 0) {
+                targets |= 1L << twoSteps;
+            }
+        }
+        return targets;
+    }
+
+    // Squares the piece could have come from without capturing
+    private static long origins(PieceType type, Color side, int square, long occupied) {
+        if (type != PieceType.PAWN) return attacks(type, side, square, occupied) & ~occupied;
+        int back = (side == Color.WHITE) ? 8 : -8;
+        int row = square >>> 3;
+        int oneStep = square + back;
+        if ((side == Color.WHITE) ? row > 5 : row < 2) return 0L;  // It would have come from its first row
+        if ((occupied & (1L << oneStep)) != 0) return 0L;
+        long origins = 1L << oneStep;
+        int twoSteps = oneStep + back;
+        if (row == ((side == Color.WHITE) ? 4 : 3) && (occupied & (1L << twoSteps)) == 0) origins |= 1L << twoSteps;
+        return origins;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    private static int kingSlot(Color color) {
+        return (color == Color.WHITE) ? 0 : 1;
+    }
+
+    private static Color opponent(Color color) {
+        return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+    }
+}
@@ -0,0 +1,270 @@
+package engine;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.PieceType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Endgame tablebases generated in process, for endings of up to MAX_PIECES pieces kings included.
+// A material is named like "KQKR": the white king and pieces, then the black king and pieces. Tables are
+// kept for the stronger side as white; a position with the colors the other way round is probed upside down.
+// A probe reads one byte from the table of the position's material, found by piece counts in a flat array.
+// Tablebases ignore the fifty-move rule, and endings with pawns on both sides are not covered, since
+// they would need en passant rights in the index.
+public class Tablebases {
+    public static final int MAX_PIECES = 4;
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    private static final String LETTERS = "PNBRQ";  // Indexed by PieceType ordinal
+    private static final int SIGNATURES = 59049;  // 3^10: up to 2 of each of the 5 piece types per color
+
+    private final ExecutorService workers;
+    private final Tablebase[] bySignature = new Tablebase[SIGNATURES];
+    private volatile int largest;  // Most pieces of any table, written after the table is in place
+
+    public Tablebases(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Tablebase generation needs at least 1 thread");
+        }
+        workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "tablebase-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Generates the table of the material, and first every smaller table a capture or promotion leads to
+    public synchronized Tablebase generate(String material) {
+        List<PieceType> white = new ArrayList<>();
+        List<PieceType> black = new ArrayList<>();
+        parse(material, white, black);
+        return generate(white, black);
+    }
+
+    // Every material with up to the given number of pieces
+    public synchronized void generateAll(int pieces) {
+        if (pieces < 3 || pieces > MAX_PIECES) {
+            throw new IllegalArgumentException("Tablebases have 3 to " + MAX_PIECES + " pieces");
+        }
+        TreeSet<String> materials = new TreeSet<>();
+        addMaterials(new ArrayList<>(), pieces - 2, materials);
+        for (String material : materials) {
+            generate(material);
+        }
+    }
+
+    public Tablebase get(String material) {
+        List<PieceType> white = new ArrayList<>();
+        List<PieceType> black = new ArrayList<>();
+        parse(material, white, black);
+        return bySignature[signature(white, black)];
+    }
+
+    // Score of the position for the player to move: Search.MATE - n when mating in n plies, -Search.MATE + n
+    // when mated in n, 0 for a draw, or NOT_FOUND when no table covers it
+    public int probe(ChessMatch match) {
+        int count = match.getPieceCount();
+        if (count > largest || match.getCastlingRights() != 0) return NOT_FOUND;
+        PieceType[] types = new PieceType[count];
+        Color[] colors = new Color[count];
+        int[] squares = new int[count];
+        int n = 0;
+        for (Color color : Color.values()) {
+            for (PieceType type : PieceType.values()) {
+                long pieces = match.getPieces(color, type);
+                while (pieces != 0) {
+                    types[n] = type;
+                    colors[n] = color;
+                    squares[n++] = Long.numberOfTrailingZeros(pieces);
+                    pieces &= pieces - 1;
+                }
+            }
+        }
+        int value = lookup(types, colors, squares, match.getCurrentPlayer());
+        if (value < 0) return NOT_FOUND;
+        if (value == Tablebase.DRAW) return 0;
+        int plies = value - 1;
+        return ((plies & 1) != 0) ? Search.MATE - plies : -Search.MATE + plies;
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    // Value byte of the position with the given pieces, or -1 when no table covers it
+    int lookup(PieceType[] types, Color[] colors, int[] squares, Color sideToMove) {
+        if (types.length == 2) return Tablebase.DRAW;  // Bare kings
+        boolean flip = false;
+        Tablebase table = bySignature[signature(types, colors, false)];
+        if (table == null) {
+            table = bySignature[signature(types, colors, true)];
+            flip = true;
+            if (table == null) return -1;
+        }
+        // Puts the squares in the table's slot order, upside down with the colors swapped when flipped
+        int[] slots = new int[types.length];
+        int used = 0;
+        for (int slot = 0; slot < slots.length; slot++) {
+            Color color = flip ? opponent(table.color(slot)) : table.color(slot);
+            for (int i = 0; i < types.length; i++) {
+                if ((used & (1 << i)) == 0 && types[i] == table.type(slot) && colors[i] == color) {
+                    used |= 1 << i;
+                    slots[slot] = flip ? squares[i] ^ 56 : squares[i];
+                    break;
+                }
+            }
+        }
+        return table.value(slots, flip ? opponent(sideToMove) : sideToMove);
+    }
+
+    private Tablebase generate(List<PieceType> white, List<PieceType> black) {
+        if (stronger(black, white)) return generate(new ArrayList<>(black), new ArrayList<>(white));
+        int signature = signature(white, black);
+        if (bySignature[signature] != null) return bySignature[signature];
+        if (white.contains(PieceType.PAWN) && black.contains(PieceType.PAWN)) {
+            throw new IllegalArgumentException("Tablebases with pawns on both sides are not supported: " + name(white, black));
+        }
+        for (List<PieceType> side : List.of(white, black)) {
+            for (int i = 0; i < side.size(); i++) {
+                PieceType type = side.get(i);
+                side.remove(i);
+                if (white.size() + black.size() > 0) generate(white, black);  // Capture, but not down to bare kings
+                if (type == PieceType.PAWN) {
+                    for (PieceType promotion : List.of(PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT)) {
+                        side.add(i, promotion);
+                        generate(white, black);
+                        side.remove(i);
+                    }
+                }
+                side.add(i, type);
+            }
+        }
+
+        PieceType[] types = new PieceType[2 + white.size() + black.size()];
+        Color[] colors = new Color[types.length];
+        types[0] = PieceType.KING;
+        colors[0] = Color.WHITE;
+        types[1] = PieceType.KING;
+        colors[1] = Color.BLACK;
+        int slot = 2;
+        for (PieceType type : sorted(white)) {
+            types[slot] = type;
+            colors[slot++] = Color.WHITE;
+        }
+        for (PieceType type : sorted(black)) {
+            types[slot] = type;
+            colors[slot++] = Color.BLACK;
+        }
+        Tablebase table = new Tablebase(name(white, black), types, colors);
+        new TablebaseGenerator(table, this, workers).generate();
+        bySignature[signature] = table;
+        largest = Math.max(largest, types.length);
+        return table;
+    }
+
+    // Splits a material name into the two sides' pieces, stronger side first
+    private static void parse(String material, List<PieceType> white, List<PieceType> black) {
+        int second = material.indexOf('K', 1);
+        if (!material.startsWith("K") || second < 0 || material.length() > MAX_PIECES || material.length() < 3) {
+            throw new IllegalArgumentException("Invalid tablebase material \"" + material + "\"");
+        }
+        for (int i = 1; i < material.length(); i++) {
+            if (i == second) continue;
+            int type = LETTERS.indexOf(material.charAt(i));
+            if (type < 0) throw new IllegalArgumentException("Invalid tablebase material \"" + material + "\"");
+            ((i < second) ? white : black).add(PieceType.values()[type]);
+        }
+        if (stronger(black, white)) {
+            List<PieceType> weaker = new ArrayList<>(white);
+            white.clear();
+            white.addAll(black);
+            black.clear();
+            black.addAll(weaker);
+        }
+    }
+
+    private static void addMaterials(List<PieceType> pieces, int count, TreeSet<String> materials) {
+        if (pieces.size() == count) {
+            for (int split = 0; split <= count; split++) {
+                List<PieceType> white = new ArrayList<>(pieces.subList(0, split));
+                List<PieceType> black = new ArrayList<>(pieces.subList(split, count));
+                if (!stronger(black, white) && !(white.contains(PieceType.PAWN) && black.contains(PieceType.PAWN))) {
+                    materials.add(name(white, black));
+                }
+            }
+            return;
+        }
+        for (PieceType type : PieceType.values()) {
+            if (type == PieceType.KING) continue;
+            pieces.add(type);
+            addMaterials(pieces, count, materials);
+            pieces.remove(pieces.size() - 1);
+        }
+    }
+
+    private static boolean stronger(List<PieceType> side, List<PieceType> other) {
+        if (side.size() != other.size()) return side.size() > other.size();
+        List<PieceType> a = sorted(side);
+        List<PieceType> b = sorted(other);
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) return a.get(i).ordinal() > b.get(i).ordinal();
+        }
+        return false;
+    }
+
+    private static List<PieceType> sorted(List<PieceType> pieces) {
+        List<PieceType> sorted = new ArrayList<>(pieces);
+        sorted.sort(Comparator.reverseOrder());  // Queen first, pawn last
+        return sorted;
+    }
+
+    private static String name(List<PieceType> white, List<PieceType> black) {
+        StringBuilder name = new StringBuilder("K");
+        for (PieceType type : sorted(white)) {
+            name.append(LETTERS.charAt(type.ordinal()));
+        }
+        name.append('K');
+        for (PieceType type : sorted(black)) {
+            name.append(LETTERS.charAt(type.ordinal()));
+        }
+        return name.toString();
+    }
+
+    // Piece counts per color and type as base-3 digits, kings left out
+    private static int signature(List<PieceType> white, List<PieceType> black) {
+        int signature = 0;
+        for (PieceType type : white) {
+            signature += digit(Color.WHITE, type);
+        }
+        for (PieceType type : black) {
+            signature += digit(Color.BLACK, type);
+        }
+        return signature;
+    }
+
+    private static int signature(PieceType[] types, Color[] colors, boolean flip) {
+        int signature = 0;
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] != PieceType.KING) signature += digit(flip ? opponent(colors[i]) : colors[i], types[i]);
+        }
+        return signature;
+    }
+
+    private static int digit(Color color, PieceType type) {
+        int power = 1;
+        for (int i = 0; i < color.ordinal() * 5 + type.ordinal(); i++) {
+            power *= 3;
+        }
+        return power;
+    }
+
+    private static Color opponent(Color color) {
+        return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+    }
+}
@@ -0,0 +1,122 @@
+package engine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Fixed-size hash table of search results, stored off-heap in direct buffers so it neither grows the Java heap
+// nor adds GC work. Each 32-byte bucket holds a depth-preferred entry and an always-replace entry.
+// Entries are written without locks: an entry is stored as (key ^ data, data), so a torn write from two
+// threads racing on the same slot fails the key check on the next probe instead of returning bad data.
+public class TranspositionTable {
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2;  // Score is at least the stored value (fail high)
+    public static final int BOUND_UPPER = 3;  // Score is at most the stored value (fail low)
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_BYTES = 2 * ENTRY_BYTES;
+    private static final int CHUNK_SHIFT = 30;  // A single direct buffer is capped at 1 GB, bigger tables use several
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    private final ByteBuffer[] chunks;
+    private final long bucketMask;
+    private int generation;
+
+    public TranspositionTable(int sizeMb) {
+        if (sizeMb < 1) {
+            throw new IllegalArgumentException("Transposition table size must be at least 1 MB");
+        }
+        long bytes = (long) sizeMb << 20;
+        long buckets = Long.highestOneBit(bytes / BUCKET_BYTES);  // Power of two, so a bucket is picked with a mask
+        bucketMask = buckets - 1;
+        long total = buckets * BUCKET_BYTES;
+        int count = (int) ((total + CHUNK_MASK) >>> CHUNK_SHIFT);
+        chunks = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            int size = (int) Math.min(total - ((long) i << CHUNK_SHIFT), 1L << CHUNK_SHIFT);
+            chunks[i] = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    public void newSearch() {
+        generation = (generation + 1) & 0x3F;  // Entries from older searches become the first to be replaced
+    }
+
+    public void clear() {
+        for (ByteBuffer chunk : chunks) {
+            for (int i = 0; i < chunk.capacity(); i += Long.BYTES) {
+                chunk.putLong(i, 0L);
+            }
+        }
+        generation = 0;
+    }
+
+    // Returns the packed entry for the key, or 0 when the key is not in the table
+    public long probe(long key) {
+        long bucket = (key & bucketMask) * BUCKET_BYTES;
+        for (int slot = 0; slot < 2; slot++) {
+            long offset = bucket + (long) slot * ENTRY_BYTES;
+            long data = readLong(offset + Long.BYTES);
+            if ((readLong(offset) ^ data) == key && data != 0) return data;
+        }
+        return 0L;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        long bucket = (key & bucketMask) * BUCKET_BYTES;
+        long data = pack(move, score, depth, bound, generation);
+
+        // Depth-preferred slot: taken when it holds the same position, a shallower result or an old search
+        long preferred = readLong(bucket + Long.BYTES);
+        boolean samePosition = (readLong(bucket) ^ preferred) == key;
+        if (preferred == 0 || samePosition || depth(preferred) <= depth || generation(preferred) != generation) {
+            if (samePosition && move == 0) {
+                data = pack(move(preferred), score, depth, bound, generation);  // Keeps the known best move
+            }
+            write(bucket, key, data);
+            return;
+        }
+        write(bucket + ENTRY_BYTES, key, data);  // Always-replace slot
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    public static int score(long entry) {
+        return (short) (entry >>> 16);
+    }
+
+    public static int depth(long entry) {
+        return (int) ((entry >>> 32) & 0xFF);
+    }
+
+    public static int bound(long entry) {
+        return (int) ((entry >>> 40) & 0x3);
+    }
+
+    private static int generation(long entry) {
+        return (int) ((entry >>> 42) & 0x3F);
+    }
+
+    // Layout: move in bits 0-15, score in 16-31, depth in 32-39, bound in 40-41 and generation in 42-47
+    private static long pack(int move, int score, int depth, int bound, int generation) {
+        return (move & 0xFFFFL)
+                | ((score & 0xFFFFL) << 16)
+                | ((long) Math.max(0, Math.min(depth, 0xFF)) << 32)
+                | ((long) bound << 40)
+                | ((long) generation << 42);
+    }
+
+    private void write(long offset, long key, long data) {
+        writeLong(offset, key ^ data);
+        writeLong(offset + Long.BYTES, data);
+    }
+
+    private long readLong(long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)].getLong((int) (offset & CHUNK_MASK));
+    }
+
+    private void writeLong(long offset, long value) {
+        chunks[(int) (offset >>> CHUNK_SHIFT)].putLong((int) (offset & CHUNK_MASK), value);
+    }
+}
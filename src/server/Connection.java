@@ -0,0 +1,166 @@
+package server;
+
+import boardgame.BoardException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Serves the line protocol for one client, on a thread of its own. Every command line gets one reply line,
+// "ok" with an optional result or "error" with a message:
+//   new              starts a session and attaches to it      ok <session>
+//   attach <session> attaches to a running session            ok <session>
+//   move <move>      plays a move, such as e2e4 or e7e8q      ok <turn> <player> <state>
+//   status | fen | moves                                      ok <turn> <player> <state> | ok <fen> | ok <move>...
+//   close            ends the attached session                ok
+//   quit             hangs up, leaving the session running    ok
+// A connection that sends nothing for the idle timeout is hung up on.
+abstract class Connection implements Runnable {
+    private final MatchHost host;
+    private MatchSession session;
+
+    Connection(MatchHost host) {
+        this.host = host;
+    }
+
+    // Next line, or null when the client is gone or was idle too long
+    abstract String readLine() throws IOException;
+
+    abstract void writeLine(String line) throws IOException;
+
+    abstract void close();
+
+    @Override
+    public void run() {
+        try {
+            for (String line = readLine(); line != null; line = readLine()) {
+                String reply = execute(line.trim());
+                writeLine(reply);
+                if (reply.equals("ok") && line.trim().equals("quit")) break;
+            }
+        } catch (IOException e) {
+            // The client went away; its session stays until it times out or is closed
+        } finally {
+            host.disconnected(this);
+            close();
+        }
+    }
+
+    private String execute(String line) {
+        int space = line.indexOf(' ');
+        String command = (space < 0) ? line : line.substring(0, space);
+        String argument = (space < 0) ? "" : line.substring(space + 1).trim();
+        try {
+            if (command.equals("new")) {
+                session = host.newSession();
+                return "ok " + session.getId();
+            }
+            if (command.equals("attach")) {
+                MatchSession found = host.getSession(argument);
+                if (found == null) return "error No session " + argument;
+                session = found;
+                session.touch();
+                return "ok " + session.getId();
+            }
+            if (command.equals("quit")) return "ok";
+            if (session == null) return "error No session attached";
+            if (host.getSession(session.getId()) != session) {
+                session = null;  // Dropped for being idle, or closed by another connection
+                return "error Session ended";
+            }
+            session.touch();
+            return switch (command) {
+                case "move" -> "ok " + session.play(argument);
+                case "status" -> "ok " + session.status();
+                case "fen" -> "ok " + session.fen();
+                case "moves" -> "ok " + session.legalMoves();
+                case "close" -> {
+                    host.closeSession(session.getId());
+                    session = null;
+                    yield "ok";
+                }
+                default -> "error Unknown command \"" + command + "\"";
+            };
+        } catch (BoardException e) {
+            return "error " + e.getMessage();  // ChessException included
+        }
+    }
+
+    static final class SocketConnection extends Connection {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final Writer out;
+
+        SocketConnection(MatchHost host, Socket socket, long idleMillis) throws IOException {
+            super(host);
+            this.socket = socket;
+            socket.setSoTimeout((int) Math.min(idleMillis, Integer.MAX_VALUE));
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        String readLine() throws IOException {
+            try {
+                return in.readLine();
+            } catch (SocketTimeoutException e) {
+                return null;
+            }
+        }
+
+        @Override
+        void writeLine(String line) throws IOException {
+            out.write(line);
+            out.write('\n');
+            out.flush();
+        }
+
+        @Override
+        void close() {
+            try {
+                socket.close();  // Also wakes a read blocked on the socket
+            } catch (IOException e) {
+                // Nothing left to do with it
+            }
+        }
+    }
+
+    static final class ChannelConnection extends Connection {
+        private final MatchChannel channel;
+        private final long idleMillis;
+
+        ChannelConnection(MatchHost host, MatchChannel channel, long idleMillis) {
+            super(host);
+            this.channel = channel;
+            this.idleMillis = idleMillis;
+        }
+
+        @Override
+        String readLine() throws IOException {
+            try {
+                String line = channel.requests().poll(idleMillis, TimeUnit.MILLISECONDS);
+                return (line == null || line == MatchChannel.CLOSED) ? null : line;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        @Override
+        void writeLine(String line) {
+            channel.replies().add(line);
+        }
+
+        @Override
+        void close() {
+            channel.replies().add(MatchChannel.CLOSED);
+            channel.requests().offer(MatchChannel.CLOSED);  // Ends a read when the host hangs up first
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package server;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// In-process client end of a connection to a MatchHost, speaking the same line protocol as a socket client
+// without the network stack. Requests and replies travel through two queues.
+public class MatchChannel {
+    static final String CLOSED = new String("closed");  // Compared by identity, so no line can be mistaken for it
+
+    private final BlockingQueue<String> requests = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+    private volatile boolean closed;
+
+    MatchChannel() {
+    }
+
+    public void send(String line) {
+        if (closed) throw new IllegalStateException("The channel is closed");
+        requests.add(line);
+    }
+
+    // Next reply, or null once the host has hung up
+    public String receive() throws InterruptedException {
+        return receive(replies.take());
+    }
+
+    // Same as receive(), but null as well when no reply comes within the timeout
+    public String receive(long timeoutMillis) throws InterruptedException {
+        String reply = replies.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        return (reply == null) ? null : receive(reply);
+    }
+
+    // Sends a command and waits for its reply
+    public String request(String line) throws InterruptedException {
+        send(line);
+        return receive();
+    }
+
+    public void close() {
+        if (closed) return;
+        closed = true;
+        requests.add(CLOSED);
+    }
+
+    private String receive(String reply) {
+        if (reply != CLOSED) return reply;
+        closed = true;
+        replies.add(CLOSED);  // Every later receive sees the end too
+        return null;
+    }
+
+    BlockingQueue<String> requests() {
+        return requests;
+    }
+
+    BlockingQueue<String> replies() {
+        return replies;
+    }
+}
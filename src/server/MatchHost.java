@@ -0,0 +1,165 @@
+package server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hosts many matches at once, each a MatchSession that clients reach through the line protocol of
+// Connection, over local sockets or in-process channels. Every connection is served by a blocking loop on a
+// thread of its own: a virtual thread when the JVM has them (Java 21+), found reflectively so the code still
+// builds and runs on Java 17, where a cached pool of daemon platform threads takes their place. An idle
+// connection then costs a parked virtual thread rather than a platform thread.
+// Sessions outlive their connections and are dropped once nobody has used them for the idle timeout.
+public class MatchHost implements Closeable {
+    private static final long SHUTDOWN_GRACE_MILLIS = 5000;
+
+    private final long idleMillis;
+    private final ExecutorService connections = newConnectionExecutor();
+    private final ScheduledExecutorService reaper;
+    private final Map<String, MatchSession> sessions = new ConcurrentHashMap<>();
+    private final Set<Connection> open = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private ServerSocket server;
+    private volatile boolean closed;
+
+    public MatchHost(long idleMillis) {
+        if (idleMillis < 1) {
+            throw new IllegalArgumentException("The idle timeout must be at least 1 ms");
+        }
+        this.idleMillis = idleMillis;
+        reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "match-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleMillis / 4);  // A session lives at most a quarter of the timeout too long
+        reaper.scheduleAtFixedRate(this::dropIdleSessions, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    // Accepts socket clients on the loopback interface; port 0 picks a free port. Returns the port
+    public synchronized int listen(int port) throws IOException {
+        if (closed) throw new IllegalStateException("The match host is closed");
+        if (server != null) throw new IllegalStateException("The match host is already listening on port " + server.getLocalPort());
+        server = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+        ServerSocket listening = server;
+        connections.execute(() -> accept(listening));
+        return server.getLocalPort();
+    }
+
+    // Opens an in-process connection
+    public MatchChannel connect() {
+        if (closed) throw new IllegalStateException("The match host is closed");
+        MatchChannel channel = new MatchChannel();
+        serve(new Connection.ChannelConnection(this, channel, idleMillis));
+        return channel;
+    }
+
+    public MatchSession getSession(String id) {
+        return sessions.get(id);
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public int getConnectionCount() {
+        return open.size();
+    }
+
+    // Stops accepting, hangs up on every client and waits up to a few seconds for commands still running
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            if (server != null) {
+                try {
+                    server.close();
+                } catch (IOException e) {
+                    // Already unusable, which is all that is needed
+                }
+            }
+        }
+        reaper.shutdownNow();
+        for (Connection connection : open) {
+            connection.close();
+        }
+        connections.shutdown();
+        try {
+            if (!connections.awaitTermination(SHUTDOWN_GRACE_MILLIS, TimeUnit.MILLISECONDS)) connections.shutdownNow();
+        } catch (InterruptedException e) {
+            connections.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        sessions.clear();
+    }
+
+    MatchSession newSession() {
+        MatchSession session = new MatchSession(Long.toString(nextId.getAndIncrement()));
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    void closeSession(String id) {
+        sessions.remove(id);
+    }
+
+    void disconnected(Connection connection) {
+        open.remove(connection);
+    }
+
+    private void serve(Connection connection) {
+        open.add(connection);
+        if (closed) {
+            open.remove(connection);  // Lost a race with close(), which may already have hung up on everyone
+            connection.close();
+            return;
+        }
+        connections.execute(connection);
+    }
+
+    private void accept(ServerSocket listening) {
+        while (!listening.isClosed()) {
+            try {
+                Socket socket = listening.accept();
+                try {
+                    serve(new Connection.SocketConnection(this, socket, idleMillis));
+                } catch (IOException e) {
+                    socket.close();
+                }
+            } catch (IOException e) {
+                // Closed by close(), or a client gone before it was accepted; the loop test tells which
+            }
+        }
+    }
+
+    private void dropIdleSessions() {
+        long now = System.nanoTime();
+        sessions.values().removeIf(session -> session.idleNanos(now) > idleMillis * 1_000_000L);
+    }
+
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Before Java 21 (or with virtual threads still in preview): one daemon platform thread per connection
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "match-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
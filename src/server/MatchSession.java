@@ -0,0 +1,81 @@
+package server;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.Fen;
+import chess.PieceType;
+import chess.PositionSnapshot;
+
+import java.util.List;
+
+// One hosted game. Any number of connections may be attached to a session, so every access to the match
+// goes through a synchronized method; none of them blocks, so a lock is only ever held for one move.
+// The position itself is read without the lock, from the snapshot the match publishes after each move.
+public class MatchSession {
+    private final String id;
+    private final ChessMatch match = new ChessMatch();
+    private volatile long lastActive = System.nanoTime();
+
+    MatchSession(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    // Plays a move in coordinate notation, such as e2e4 or e7e8n, and returns the new status
+    public synchronized String play(String move) {
+        if (match.getCheckMate() || match.getStalemate()) throw new ChessException("The game is over");
+        if (move.length() < 4 || move.length() > 5) throw new ChessException("Invalid move \"" + move + "\"");
+        ChessPosition source = new ChessPosition(move.charAt(0), move.charAt(1) - '0');
+        ChessPosition target = new ChessPosition(move.charAt(2), move.charAt(3) - '0');
+        PieceType promotion = null;
+        if (move.length() == 5) {
+            int type = "nbrq".indexOf(Character.toLowerCase(move.charAt(4)));
+            if (type < 0) throw new ChessException("Invalid promotion in \"" + move + "\"");
+            promotion = PieceType.values()[PieceType.KNIGHT.ordinal() + type];
+        }
+        ChessMove legal = match.resolveMove(source.toSquare(), target.toSquare(), promotion);
+        if (legal == null) throw new ChessException("Illegal move \"" + move + "\"");
+        match.performChessMove(legal);  // The exact move found, so an under-promotion is tested with its own piece
+        return status();
+    }
+
+    // Turn, player to move (the mated side after checkmate) and state: in-progress, check, checkmate or stalemate
+    public synchronized String status() {
+        String state = match.getCheckMate() ? "checkmate" : match.getStalemate() ? "stalemate"
+                : match.getCheck() ? "check" : "in-progress";
+        return match.getTurn() + " " + match.getCurrentPlayer().name().toLowerCase() + " " + state;
+    }
+
+    // Read from the match's published snapshot, so spectators never wait for a move in progress
+    public String fen() {
+        return Fen.toFen(match.getPublishedSnapshot());
+    }
+
+    public PositionSnapshot getPosition() {
+        return match.getPublishedSnapshot();
+    }
+
+    public synchronized String legalMoves() {
+        if (match.getCheckMate() || match.getStalemate()) return "";  // The game is over, nobody has a move to play
+        List<ChessMove> moves = match.legalMoves();
+        StringBuilder text = new StringBuilder();
+        for (ChessMove move : moves) {
+            if (text.length() > 0) text.append(' ');
+            text.append(move.toString().toLowerCase());
+        }
+        return text.toString();
+    }
+
+    void touch() {
+        lastActive = System.nanoTime();
+    }
+
+    long idleNanos(long now) {
+        return now - lastActive;
+    }
+}
@@ -0,0 +1,39 @@
+package chess;
+
+// Run with: java chess.ChessMatchTest (exits with an AssertionError on the first failure)
+public class ChessMatchTest {
+    public static void main(String[] args) {
+        takebacksArePublished();
+        castlingThroughCheckIsNotOffered();
+        System.out.println("ChessMatchTest passed");
+    }
+
+    // Spectators read the published snapshot, so a takeback must replace it like a move does
+    private static void takebacksArePublished() {
+        ChessMatch match = new ChessMatch();
+        PositionSnapshot start = match.snapshot();
+        match.performChessMove(new ChessPosition('e', 2), new ChessPosition('e', 4));
+        match.undoLastMove();
+        check(match.getPublishedSnapshot().equals(start), "undoLastMove publishes the start position");
+
+        match.performChessMove(new ChessPosition('e', 2), new ChessPosition('e', 4));
+        match.performChessMove(new ChessPosition('e', 7), new ChessPosition('e', 5));
+        match.undoTo(0);
+        check(match.getPublishedSnapshot().equals(start), "undoTo publishes the start position");
+    }
+
+    // The rook on f2 covers f1: the king can't castle short through it, but can still castle long
+    private static void castlingThroughCheckIsNotOffered() {
+        ChessMatch match = Fen.parse("r3k2r/8/8/8/8/8/5r2/R3K2R w KQkq - 0 1");
+        boolean[][] moves = match.possibleMoves(new ChessPosition('e', 1));
+        check(!moves[7][6], "g1 is not offered");
+        check(moves[7][2], "c1 is offered");
+        int e1 = new ChessPosition('e', 1).toSquare();
+        check(match.resolveMove(e1, new ChessPosition('g', 1).toSquare(), null) == null, "e1g1 is not legal");
+        check(match.resolveMove(e1, new ChessPosition('c', 1).toSquare(), null) != null, "e1c1 is legal");
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) throw new AssertionError(what);
+    }
+}
@@ -0,0 +1,48 @@
+package chess;
+
+import java.util.List;
+
+// Run with: java chess.GameValidatorTest (exits with an AssertionError on the first failure)
+public class GameValidatorTest {
+    public static void main(String[] args) {
+        underPromotionIsTestedWithItsOwnPiece();
+        replacedPromotionIsTestedWithItsOwnPiece();
+        System.out.println("GameValidatorTest passed");
+    }
+
+    // c8=Q would be mate, c8=N gives no check, so black's Kb8 must be legal
+    private static void underPromotionIsTestedWithItsOwnPiece() {
+        ChessMatch start = Fen.parse("k7/2P5/1K6/8/8/8/8/8 w - - 0 1");
+        List<ChessMove> moves = List.of(
+                new ChessMove(Move.promotion(square("c7"), square("c8"), PieceType.KNIGHT, false)),
+                new ChessMove(Move.of(square("a8"), square("b8"), Move.QUIET)));
+        ValidationResult result = GameValidator.validate(0, start, moves);
+        check(result.isLegal(), "Kb8 after c8=N is legal");
+        check(result.getPlies() == 2, "both moves are played");
+        check(result.getStatus() == ValidationResult.Status.IN_PROGRESS, "no check or mate after Kb8");
+
+        ValidationResult queen = GameValidator.validate(0, start, List.of(
+                new ChessMove(Move.promotion(square("c7"), square("c8"), PieceType.QUEEN, false))));
+        check(queen.getStatus() == ValidationResult.Status.CHECKMATE, "c8=Q is mate");
+    }
+
+    // The interactive path: performChessMove makes a queen, replacePromotedPiece swaps in a knight
+    private static void replacedPromotionIsTestedWithItsOwnPiece() {
+        ChessMatch match = Fen.parse("k7/2P5/1K6/8/8/8/8/8 w - - 0 1");
+        match.performChessMove(new ChessPosition('c', 7), new ChessPosition('c', 8));
+        check(match.getCheckMate(), "c8=Q is mate");
+        match.replacePromotedPiece("N");
+        check(!match.getCheck() && !match.getCheckMate() && !match.getStalemate(), "c8=N leaves black free to move");
+        check(match.getCurrentPlayer() == Color.BLACK, "black is to move after c8=N");
+        check(match.getPublishedSnapshot().getPieceType(square("c8")) == PieceType.KNIGHT, "the knight is published");
+        match.performChessMove(new ChessPosition('a', 8), new ChessPosition('b', 8));
+    }
+
+    private static int square(String name) {
+        return new ChessPosition(name.charAt(0), name.charAt(1) - '0').toSquare();
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) throw new AssertionError(what);
+    }
+}
@@ -0,0 +1,30 @@
+package chess;
+
+import java.util.concurrent.ForkJoinPool;
+
+// Run with: java chess.PerftTest (exits with an AssertionError on the first failure)
+public class PerftTest {
+    public static void main(String[] args) {
+        Perft perft = new Perft(ForkJoinPool.commonPool());
+        // The published counts for the standard test positions, at depths that run in about a second
+        count(perft, "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", 4, 197281);
+        count(perft, "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 3, 97862);
+        count(perft, "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 5, 674624);
+        count(perft, "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 4, 422333);
+        count(perft, "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 3, 62379);
+        count(perft, "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 3, 89890);
+
+        // The count hash must not change the result
+        count(new Perft(ForkJoinPool.commonPool(), 16), "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 4, 4085603);
+        System.out.println("PerftTest passed");
+    }
+
+    private static void count(Perft perft, String fen, int depth, long expected) {
+        long nodes = perft.count(Fen.parse(fen), depth);
+        check(nodes == expected, fen + " depth " + depth + ": " + nodes + " nodes, expected " + expected);
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) throw new AssertionError(what);
+    }
+}
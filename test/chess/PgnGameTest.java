@@ -0,0 +1,41 @@
+package chess;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Run with: java chess.PgnGameTest (exits with an AssertionError on the first failure)
+public class PgnGameTest {
+    public static void main(String[] args) {
+        replayedMateMatchesPlayedMate();
+        System.out.println("PgnGameTest passed");
+    }
+
+    // Fool's mate read from PGN and replayed must end in the same state as the moves played one by one
+    private static void replayedMateMatchesPlayedMate() {
+        String pgn = "[Event \"Fool's mate\"]\n\n1. f3 e5 2. g4 Qh4# 0-1\n";
+        PgnGame game = new PgnReader(ByteBuffer.wrap(pgn.getBytes(StandardCharsets.US_ASCII))).next();
+        ChessMatch replayed = game.replay();
+
+        ChessMatch played = new ChessMatch();
+        for (String move : new String[]{"f2f3", "e7e5", "g2g4", "d8h4"}) {
+            played.performChessMove(new ChessPosition(move.charAt(0), move.charAt(1) - '0'),
+                    new ChessPosition(move.charAt(2), move.charAt(3) - '0'));
+        }
+
+        for (ChessMatch match : new ChessMatch[]{replayed, played}) {
+            check(match.getCheckMate(), "the game ends in checkmate");
+            check(match.getCurrentPlayer() == Color.WHITE, "the mated side is to move");
+            check(match.getWinner() == Color.BLACK, "black wins");
+        }
+        check(replayed.snapshot().equals(played.snapshot()), "same snapshot");
+        check(replayed.getPublishedSnapshot().equals(played.getPublishedSnapshot()), "same published snapshot");
+        check(Fen.toFen(replayed).equals(Fen.toFen(played)), "same FEN");
+        check(Fen.toFen(played).equals("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3"), "white to move in the FEN");
+        check(replayed.getZobristKey() == played.getZobristKey(), "same key");
+        check(played.getPublishedSnapshot().toMatch().getCheckMate(), "the published position is checkmate");
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) throw new AssertionError(what);
+    }
+}
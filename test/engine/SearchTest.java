@@ -0,0 +1,28 @@
+package engine;
+
+import chess.ChessMatch;
+import chess.Fen;
+
+// Run with: java engine.SearchTest (exits with an AssertionError on the first failure)
+public class SearchTest {
+    public static void main(String[] args) {
+        stopDoesNotOutliveItsSearch();
+        System.out.println("SearchTest passed");
+    }
+
+    // stop -> search -> search: both searches after the stop must run to the requested depth
+    private static void stopDoesNotOutliveItsSearch() {
+        ChessMatch match = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        Search search = new Search(new TranspositionTable(16));
+        search.stop();
+        SearchResult first = search.search(match, 4, 0, 0);
+        check(first.getDepth() == 4, "the first search after stop() reaches depth 4, got " + first.getDepth());
+        SearchResult second = search.search(match, 4, 0, 0);
+        check(second.getDepth() == 4, "the second search reaches depth 4, got " + second.getDepth());
+        check(second.getBestMove() != null, "the second search finds a move");
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) throw new AssertionError(what);
+    }
+}